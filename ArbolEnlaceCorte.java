@@ -0,0 +1,219 @@
+import java.util.Arrays;
+
+/**
+ * Árbol de enlace y corte (link-cut tree de Sleator y Tarjan) sobre arreglos primitivos.
+ * Mantiene un bosque dinámico en el que cada nodo tiene una clave long y permite enlazar,
+ * cortar, saber si dos nodos están conectados y obtener el nodo de clave máxima en el camino
+ * entre dos nodos, todo en O(log n) amortizado. Los caminos preferidos se guardan como árboles
+ * splay; padre[x] es el padre en el árbol splay o, si x es raíz de su splay, el padre de camino.
+ */
+public class ArbolEnlaceCorte {
+    int[] izquierdo;
+    int[] derecho;
+    int[] padre;
+    boolean[] invertido;  // Inversión pendiente del subárbol (para cambiar la raíz)
+    long[] clave;
+    int[] maximo;         // Nodo de clave máxima en el subárbol splay
+    int numNodos;
+    private int[] pila = new int[16];
+
+    public ArbolEnlaceCorte(int capacidadInicial) {
+        int capacidad = Math.max(1, capacidadInicial);
+        izquierdo = new int[capacidad];
+        derecho = new int[capacidad];
+        padre = new int[capacidad];
+        invertido = new boolean[capacidad];
+        clave = new long[capacidad];
+        maximo = new int[capacidad];
+    }
+
+    /**
+     * Agrega un nodo aislado con la clave dada.
+     *
+     * @return Índice del nuevo nodo
+     */
+    public int agregarNodo(long claveNodo) {
+        if (numNodos == padre.length) {
+            int nuevaCapacidad = padre.length * 2;
+            izquierdo = Arrays.copyOf(izquierdo, nuevaCapacidad);
+            derecho = Arrays.copyOf(derecho, nuevaCapacidad);
+            padre = Arrays.copyOf(padre, nuevaCapacidad);
+            invertido = Arrays.copyOf(invertido, nuevaCapacidad);
+            clave = Arrays.copyOf(clave, nuevaCapacidad);
+            maximo = Arrays.copyOf(maximo, nuevaCapacidad);
+        }
+        int x = numNodos++;
+        izquierdo[x] = -1;
+        derecho[x] = -1;
+        padre[x] = -1;
+        invertido[x] = false;
+        clave[x] = claveNodo;
+        maximo[x] = x;
+        return x;
+    }
+
+    /**
+     * Cambia la clave de un nodo, esté o no en un árbol.
+     */
+    public void cambiarClave(int x, long nuevaClave) {
+        acceder(x);
+        clave[x] = nuevaClave;
+        actualizar(x);
+    }
+
+    /**
+     * Indica si x e y están en el mismo árbol del bosque.
+     */
+    public boolean conectados(int x, int y) {
+        return x == y || buscarRaiz(x) == buscarRaiz(y);
+    }
+
+    /**
+     * Une los árboles de x e y con la arista x - y. Deben estar en árboles distintos.
+     */
+    public void enlazar(int x, int y) {
+        hacerRaiz(x);
+        padre[x] = y;
+    }
+
+    /**
+     * Elimina la arista x - y, que debe existir en el bosque.
+     */
+    public void cortar(int x, int y) {
+        hacerRaiz(x);
+        acceder(y);
+        // Ahora el camino preferido es exactamente x - y, con x como hijo izquierdo de y
+        izquierdo[y] = -1;
+        padre[x] = -1;
+        actualizar(y);
+    }
+
+    /**
+     * Devuelve el nodo de clave máxima en el camino entre x e y, que deben estar conectados.
+     */
+    public int maximoEnCamino(int x, int y) {
+        hacerRaiz(x);
+        acceder(y);
+        return maximo[y];
+    }
+
+    private void hacerRaiz(int x) {
+        acceder(x);
+        invertido[x] ^= true;
+    }
+
+    private int buscarRaiz(int x) {
+        acceder(x);
+        empujar(x);
+        while (izquierdo[x] >= 0) {
+            x = izquierdo[x];
+            empujar(x);
+        }
+        splay(x);
+        return x;
+    }
+
+    /**
+     * Hace que el camino preferido vaya desde la raíz del árbol hasta x, y deja a x como raíz de
+     * su árbol splay sin hijo derecho.
+     */
+    private void acceder(int x) {
+        int ultimo = -1;
+        for (int y = x; y >= 0; y = padre[y]) {
+            splay(y);
+            derecho[y] = ultimo;
+            actualizar(y);
+            ultimo = y;
+        }
+        splay(x);
+    }
+
+    private boolean esRaizSplay(int x) {
+        int p = padre[x];
+        return p < 0 || (izquierdo[p] != x && derecho[p] != x);
+    }
+
+    private void actualizar(int x) {
+        int m = x;
+        int hijo = izquierdo[x];
+        if (hijo >= 0 && clave[maximo[hijo]] > clave[m]) {
+            m = maximo[hijo];
+        }
+        hijo = derecho[x];
+        if (hijo >= 0 && clave[maximo[hijo]] > clave[m]) {
+            m = maximo[hijo];
+        }
+        maximo[x] = m;
+    }
+
+    private void empujar(int x) {
+        if (invertido[x]) {
+            int temporal = izquierdo[x];
+            izquierdo[x] = derecho[x];
+            derecho[x] = temporal;
+            if (izquierdo[x] >= 0) {
+                invertido[izquierdo[x]] ^= true;
+            }
+            if (derecho[x] >= 0) {
+                invertido[derecho[x]] ^= true;
+            }
+            invertido[x] = false;
+        }
+    }
+
+    private void rotar(int x) {
+        int p = padre[x];
+        int g = padre[p];
+        if (!esRaizSplay(p)) {
+            if (izquierdo[g] == p) {
+                izquierdo[g] = x;
+            } else {
+                derecho[g] = x;
+            }
+        }
+        padre[x] = g;
+        if (izquierdo[p] == x) {
+            izquierdo[p] = derecho[x];
+            if (derecho[x] >= 0) {
+                padre[derecho[x]] = p;
+            }
+            derecho[x] = p;
+        } else {
+            derecho[p] = izquierdo[x];
+            if (izquierdo[x] >= 0) {
+                padre[izquierdo[x]] = p;
+            }
+            izquierdo[x] = p;
+        }
+        padre[p] = x;
+        actualizar(p);
+        actualizar(x);
+    }
+
+    private void splay(int x) {
+        // Aplicar las inversiones pendientes desde la raíz del splay hasta x, sin recursión
+        int tamano = 0;
+        for (int y = x; ; y = padre[y]) {
+            if (tamano == pila.length) {
+                pila = Arrays.copyOf(pila, tamano * 2);
+            }
+            pila[tamano++] = y;
+            if (esRaizSplay(y)) {
+                break;
+            }
+        }
+        while (tamano > 0) {
+            empujar(pila[--tamano]);
+        }
+
+        while (!esRaizSplay(x)) {
+            int p = padre[x];
+            if (!esRaizSplay(p)) {
+                int g = padre[p];
+                boolean mismoLado = (izquierdo[g] == p) == (izquierdo[p] == x);
+                rotar(mismoLado ? p : x);
+            }
+            rotar(x);
+        }
+    }
+}
@@ -0,0 +1,328 @@
+import java.util.Arrays;
+
+/**
+ * Bosque de expansión mínima dinámico. Cada arista tiene una clave long (distinta para cada
+ * arista, de modo que el bosque mínimo es único) y se pueden agregar y eliminar aristas o
+ * cambiar su clave sin recalcular todo:
+ * - Al agregar una arista o bajar su clave, el árbol de enlace y corte da la arista de clave
+ *   máxima del ciclo que se formaría; si es más cara, se reemplaza (propiedad del ciclo).
+ * - Al eliminar una arista del árbol o subir su clave, se corta y se busca la arista más
+ *   barata que cruza el corte (propiedad del corte), recorriendo sólo el lado más pequeño.
+ * Las aristas se representan como nodos del árbol de enlace y corte (numVertices + índice),
+ * para que el máximo de un camino sea una arista.
+ */
+public class ArbolExpansionDinamico {
+    int numVertices;
+    int numAristas;
+    int[] origenes;
+    int[] destinos;
+    long[] claves;
+    boolean[] activa;
+    boolean[] enArbol;
+    ArbolEnlaceCorte bosque;
+    Incidencias todas;   // Aristas activas que tocan cada vértice
+    Incidencias arbol;   // Aristas del bosque que tocan cada vértice
+
+    // Aristas que entraron o salieron del bosque desde la última llamada a tomarCambios
+    int[] cambios = new int[16];
+    int numCambios;
+
+    // Recorrido de los dos lados de un corte
+    int[] colaOrigen;
+    int[] colaDestino;
+    int[] marca;
+    int epoca;
+
+    public ArbolExpansionDinamico(int numVertices, int capacidadAristas) {
+        int capacidad = Math.max(1, capacidadAristas);
+        this.numVertices = numVertices;
+        origenes = new int[capacidad];
+        destinos = new int[capacidad];
+        claves = new long[capacidad];
+        activa = new boolean[capacidad];
+        enArbol = new boolean[capacidad];
+        bosque = new ArbolEnlaceCorte(numVertices + capacidad);
+        for (int v = 0; v < numVertices; v++) {
+            bosque.agregarNodo(Long.MIN_VALUE);
+        }
+        todas = new Incidencias(numVertices, capacidad);
+        arbol = new Incidencias(numVertices, capacidad);
+        colaOrigen = new int[numVertices];
+        colaDestino = new int[numVertices];
+        marca = new int[numVertices];
+    }
+
+    /**
+     * Carga de una vez un grafo cuyo bosque de expansión mínima ya se conoce (por ejemplo,
+     * calculado con Kruskal), sin buscar ciclos arista por arista.
+     *
+     * @param numVertices Número de vértices
+     * @param aristas Aristas del grafo; la arista i recibe el índice i
+     * @param claves Clave de cada arista
+     * @param bosqueMinimo Índices de las aristas del bosque de expansión mínima
+     */
+    public static ArbolExpansionDinamico desdeBosque(int numVertices, ListaAristas aristas, long[] claves,
+                                                     int[] bosqueMinimo) {
+        ArbolExpansionDinamico dinamico = new ArbolExpansionDinamico(numVertices, aristas.tamano());
+        for (int i = 0; i < aristas.tamano(); i++) {
+            int origen = aristas.origenes[i];
+            int destino = aristas.destinos[i];
+            dinamico.validarVertices(origen, destino);
+            dinamico.origenes[i] = origen;
+            dinamico.destinos[i] = destino;
+            dinamico.claves[i] = claves[i];
+            dinamico.activa[i] = true;
+            dinamico.bosque.agregarNodo(claves[i]);
+            if (origen != destino) {
+                dinamico.todas.agregar(i, origen, destino);
+            }
+        }
+        dinamico.numAristas = aristas.tamano();
+        for (int arista : bosqueMinimo) {
+            dinamico.enlazarArista(arista);
+        }
+        return dinamico;
+    }
+
+    /**
+     * Agrega la arista origen - destino con la clave dada y actualiza el bosque.
+     *
+     * @return Índice de la nueva arista (las aristas se numeran en orden de inserción)
+     */
+    public int agregarArista(int origen, int destino, long clave) {
+        validarVertices(origen, destino);
+        if (numAristas == origenes.length) {
+            int nuevaCapacidad = origenes.length * 2;
+            origenes = Arrays.copyOf(origenes, nuevaCapacidad);
+            destinos = Arrays.copyOf(destinos, nuevaCapacidad);
+            claves = Arrays.copyOf(claves, nuevaCapacidad);
+            activa = Arrays.copyOf(activa, nuevaCapacidad);
+            enArbol = Arrays.copyOf(enArbol, nuevaCapacidad);
+        }
+        int arista = numAristas++;
+        origenes[arista] = origen;
+        destinos[arista] = destino;
+        claves[arista] = clave;
+        activa[arista] = true;
+        bosque.agregarNodo(clave);
+
+        // Los lazos nunca forman parte del bosque
+        if (origen != destino) {
+            todas.agregar(arista, origen, destino);
+            insertar(arista);
+        }
+        return arista;
+    }
+
+    /**
+     * Elimina una arista; si estaba en el bosque, la reemplaza por la más barata que cruce el corte.
+     */
+    public void eliminarArista(int arista) {
+        if (!activa[arista]) {
+            return;
+        }
+        activa[arista] = false;
+        if (origenes[arista] == destinos[arista]) {
+            return;
+        }
+        todas.quitar(arista, origenes[arista], destinos[arista]);
+        if (enArbol[arista]) {
+            cortarArista(arista);
+            reconectar(origenes[arista], destinos[arista]);
+        }
+    }
+
+    /**
+     * Cambia la clave de una arista activa y actualiza el bosque.
+     */
+    public void cambiarClave(int arista, long nuevaClave) {
+        long anterior = claves[arista];
+        claves[arista] = nuevaClave;
+        bosque.cambiarClave(numVertices + arista, nuevaClave);
+        if (!activa[arista] || origenes[arista] == destinos[arista]) {
+            return;
+        }
+        if (enArbol[arista] && nuevaClave > anterior) {
+            // Puede existir ahora una arista más barata que cruce el mismo corte (incluida ella misma)
+            cortarArista(arista);
+            reconectar(origenes[arista], destinos[arista]);
+        } else if (!enArbol[arista] && nuevaClave < anterior) {
+            insertar(arista);
+        }
+    }
+
+    private void validarVertices(int origen, int destino) {
+        if (origen < 0 || origen >= numVertices || destino < 0 || destino >= numVertices) {
+            throw new IllegalArgumentException("Vértice fuera de rango: " + origen + " -> " + destino);
+        }
+    }
+
+    public boolean enArbol(int arista) {
+        return enArbol[arista];
+    }
+
+    /**
+     * Devuelve las aristas que entraron o salieron del bosque desde la llamada anterior (una
+     * arista puede aparecer más de una vez) y reinicia la lista.
+     */
+    public int[] tomarCambios() {
+        int[] resultado = Arrays.copyOf(cambios, numCambios);
+        numCambios = 0;
+        return resultado;
+    }
+
+    /**
+     * Inserta en el bosque una arista activa que no está en él, si mejora el bosque.
+     */
+    private void insertar(int arista) {
+        int u = origenes[arista];
+        int v = destinos[arista];
+        if (!bosque.conectados(u, v)) {
+            enlazarArista(arista);
+            return;
+        }
+        int masCara = bosque.maximoEnCamino(u, v) - numVertices;
+        if (claves[arista] < claves[masCara]) {
+            cortarArista(masCara);
+            enlazarArista(arista);
+        }
+    }
+
+    /**
+     * Tras cortar la arista u - v, busca la arista más barata que vuelva a unir ambos lados.
+     * Los dos lados se recorren a la vez, un vértice por turno, y se revisan sólo las aristas
+     * del lado que termina primero (el más pequeño).
+     */
+    private void reconectar(int u, int v) {
+        epoca += 2;
+        int marcaOrigen = epoca - 1;
+        int marcaDestino = epoca;
+        colaOrigen[0] = u;
+        marca[u] = marcaOrigen;
+        colaDestino[0] = v;
+        marca[v] = marcaDestino;
+        int inicioOrigen = 0, finOrigen = 1;
+        int inicioDestino = 0, finDestino = 1;
+        while (inicioOrigen < finOrigen && inicioDestino < finDestino) {
+            finOrigen = expandir(colaOrigen[inicioOrigen++], colaOrigen, finOrigen, marcaOrigen);
+            finDestino = expandir(colaDestino[inicioDestino++], colaDestino, finDestino, marcaDestino);
+        }
+
+        int[] lado;
+        int tamanoLado;
+        int marcaLado;
+        if (inicioOrigen == finOrigen) {
+            lado = colaOrigen;
+            tamanoLado = finOrigen;
+            marcaLado = marcaOrigen;
+        } else {
+            lado = colaDestino;
+            tamanoLado = finDestino;
+            marcaLado = marcaDestino;
+        }
+
+        int mejor = -1;
+        for (int i = 0; i < tamanoLado; i++) {
+            int x = lado[i];
+            int[] extremos = todas.extremos[x];
+            for (int j = 0; j < todas.tamano[x]; j++) {
+                int arista = extremos[j] >>> 1;
+                if (enArbol[arista]) {
+                    continue;
+                }
+                int otro = origenes[arista] == x ? destinos[arista] : origenes[arista];
+                if (marca[otro] != marcaLado && (mejor < 0 || claves[arista] < claves[mejor])) {
+                    mejor = arista;
+                }
+            }
+        }
+        if (mejor >= 0) {
+            enlazarArista(mejor);
+        }
+    }
+
+    private int expandir(int x, int[] cola, int fin, int marcaLado) {
+        int[] extremos = arbol.extremos[x];
+        for (int j = 0; j < arbol.tamano[x]; j++) {
+            int arista = extremos[j] >>> 1;
+            int otro = origenes[arista] == x ? destinos[arista] : origenes[arista];
+            if (marca[otro] != marcaLado) {
+                marca[otro] = marcaLado;
+                cola[fin++] = otro;
+            }
+        }
+        return fin;
+    }
+
+    private void enlazarArista(int arista) {
+        int nodo = numVertices + arista;
+        bosque.enlazar(origenes[arista], nodo);
+        bosque.enlazar(nodo, destinos[arista]);
+        enArbol[arista] = true;
+        arbol.agregar(arista, origenes[arista], destinos[arista]);
+        registrarCambio(arista);
+    }
+
+    private void cortarArista(int arista) {
+        int nodo = numVertices + arista;
+        bosque.cortar(origenes[arista], nodo);
+        bosque.cortar(nodo, destinos[arista]);
+        enArbol[arista] = false;
+        arbol.quitar(arista, origenes[arista], destinos[arista]);
+        registrarCambio(arista);
+    }
+
+    private void registrarCambio(int arista) {
+        if (numCambios == cambios.length) {
+            cambios = Arrays.copyOf(cambios, numCambios * 2);
+        }
+        cambios[numCambios++] = arista;
+    }
+
+    /**
+     * Listas de incidencia con borrado en O(1). Cada arista aparece como dos extremos,
+     * 2 * arista (en su origen) y 2 * arista + 1 (en su destino), y se guarda la posición de
+     * cada extremo para poder quitarlo intercambiándolo con el último de la lista.
+     */
+    static class Incidencias {
+        int[][] extremos;
+        int[] tamano;
+        int[] posicion;
+
+        Incidencias(int numVertices, int capacidadAristas) {
+            extremos = new int[numVertices][];
+            tamano = new int[numVertices];
+            posicion = new int[2 * Math.max(1, capacidadAristas)];
+        }
+
+        void agregar(int arista, int origen, int destino) {
+            if (2 * arista + 1 >= posicion.length) {
+                posicion = Arrays.copyOf(posicion, Math.max(2 * arista + 2, posicion.length * 2));
+            }
+            insertar(origen, 2 * arista);
+            insertar(destino, 2 * arista + 1);
+        }
+
+        void quitar(int arista, int origen, int destino) {
+            retirar(origen, 2 * arista);
+            retirar(destino, 2 * arista + 1);
+        }
+
+        private void insertar(int v, int extremo) {
+            if (extremos[v] == null) {
+                extremos[v] = new int[4];
+            } else if (tamano[v] == extremos[v].length) {
+                extremos[v] = Arrays.copyOf(extremos[v], tamano[v] * 2);
+            }
+            posicion[extremo] = tamano[v];
+            extremos[v][tamano[v]++] = extremo;
+        }
+
+        private void retirar(int v, int extremo) {
+            int p = posicion[extremo];
+            int ultimo = extremos[v][--tamano[v]];
+            extremos[v][p] = ultimo;
+            posicion[ultimo] = p;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Formato binario de grafos y conversor desde los formatos de texto de los programas.
+ *
+ * Estructura del archivo (enteros de 32 bits little-endian):
+ * <pre>
+ *   MAGICO  VERSION  numVertices  numAristas
+ *   origenes[numAristas]  destinos[numAristas]  pesos[numAristas]
+ * </pre>
+ * Las aristas se guardan en el mismo orden que en el archivo de texto, por lo que cargar el
+ * binario produce exactamente la misma ListaAristas que interpretar el texto. La carga mapea
+ * el archivo en memoria y copia cada arreglo con una sola lectura masiva; como el archivo
+ * queda en la caché de páginas del sistema, las ejecuciones siguientes no leen el disco.
+ *
+ * Uso del conversor:
+ *   java ArchivoGrafoBinario caminos|componentes|vias <entrada.txt> <salida.bin>
+ */
+public class ArchivoGrafoBinario {
+    static final int MAGICO = 0x47524642; // "GRFB"
+    static final int VERSION = 1;
+    private static final int TAMANO_ENCABEZADO = 16;
+
+    // Mayor región que se mapea de una vez (los arreglos pueden superar los 2 GB en total)
+    private static final long TAMANO_VENTANA = 1L << 30;
+
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.out.println("Uso: java ArchivoGrafoBinario caminos|componentes|vias <entrada.txt> <salida.bin>");
+            return;
+        }
+
+        String formato = args[0];
+        try {
+            ListaAristas aristas;
+            int numVertices;
+            switch (formato) {
+                case "caminos":
+                    // <origen> <destino> <costo> por línea
+                    aristas = LectorEnteros.leerAristas(args[1], 0, 3, Runtime.getRuntime().availableProcessors());
+                    numVertices = aristas.numVertices;
+                    break;
+                case "componentes": {
+                    // <número_de_vértices> y luego <origen> <destino> por línea
+                    try (LectorEnteros lector = new LectorEnteros(args[1])) {
+                        int[] valores = new int[1];
+                        lector.leerLineaCompleta(valores, 1);
+                        aristas = LectorEnteros.leerAristas(args[1], lector.posicion(), 2,
+                                Runtime.getRuntime().availableProcessors());
+                        numVertices = valores[0] == 0 ? aristas.numVertices : valores[0];
+                    }
+                    break;
+                }
+                case "vias": {
+                    // <intersecciones> <vías> y luego exactamente <vías> líneas <origen> <destino> <costo>
+                    try (LectorEnteros lector = new LectorEnteros(args[1])) {
+                        int[] valores = new int[3];
+                        lector.leerLineaCompleta(valores, 2);
+                        numVertices = valores[0];
+                        int numVias = valores[1];
+                        aristas = new ListaAristas(numVias);
+                        for (int i = 0; i < numVias; i++) {
+                            lector.leerLineaCompleta(valores, 3);
+                            aristas.agregar(valores[0], valores[1], valores[2]);
+                        }
+                    }
+                    break;
+                }
+                default:
+                    System.err.println("Formato desconocido: " + formato);
+                    return;
+            }
+
+            escribir(args[2], numVertices, aristas);
+            System.out.println("Grafo convertido: " + numVertices + " vértices, " + aristas.tamano() + " aristas.");
+        } catch (IOException e) {
+            System.err.println("Error al leer el archivo: " + e.getMessage());
+        } catch (NumberFormatException e) {
+            System.err.println("Error en el formato del archivo: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Indica si el archivo empieza con el número mágico del formato binario.
+     */
+    public static boolean esBinario(String archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(Paths.get(archivo), StandardOpenOption.READ)) {
+            if (canal.size() < TAMANO_ENCABEZADO) {
+                return false;
+            }
+            ByteBuffer encabezado = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            canal.read(encabezado, 0);
+            return encabezado.getInt(0) == MAGICO;
+        }
+    }
+
+    /**
+     * Escribe el grafo en formato binario.
+     *
+     * @param archivo Ruta del archivo de salida
+     * @param numVertices Número de vértices declarado
+     * @param aristas Aristas en el orden en que se deben cargar
+     */
+    public static void escribir(String archivo, int numVertices, ListaAristas aristas) throws IOException {
+        try (FileChannel canal = FileChannel.open(Paths.get(archivo), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer encabezado = ByteBuffer.allocate(TAMANO_ENCABEZADO).order(ByteOrder.LITTLE_ENDIAN);
+            encabezado.putInt(MAGICO).putInt(VERSION).putInt(numVertices).putInt(aristas.tamano());
+            encabezado.flip();
+            escribirTodo(canal, encabezado);
+
+            ByteBuffer bloque = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            escribirArreglo(canal, bloque, aristas.origenes, aristas.tamano());
+            escribirArreglo(canal, bloque, aristas.destinos, aristas.tamano());
+            escribirArreglo(canal, bloque, aristas.pesos, aristas.tamano());
+        }
+    }
+
+    static void escribirArreglo(FileChannel canal, ByteBuffer bloque, int[] arreglo, int cantidad) throws IOException {
+        IntBuffer enteros = bloque.clear().asIntBuffer();
+        int escritos = 0;
+        while (escritos < cantidad) {
+            int n = Math.min(enteros.capacity(), cantidad - escritos);
+            enteros.clear();
+            enteros.put(arreglo, escritos, n);
+            bloque.clear().limit(n * 4);
+            escribirTodo(canal, bloque);
+            escritos += n;
+        }
+    }
+
+    static void escribirTodo(FileChannel canal, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+    }
+
+    /**
+     * Carga un grafo en formato binario. El número de vértices de la lista devuelta es el
+     * declarado en el encabezado.
+     *
+     * @param archivo Ruta del archivo binario
+     * @return Aristas en el orden original
+     * @throws IOException si el archivo no tiene el formato o la versión esperados
+     */
+    public static ListaAristas leer(String archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(Paths.get(archivo), StandardOpenOption.READ)) {
+            ByteBuffer encabezado = canal.map(FileChannel.MapMode.READ_ONLY, 0, TAMANO_ENCABEZADO)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (encabezado.getInt(0) != MAGICO) {
+                throw new IOException("El archivo no está en formato binario de grafo: " + archivo);
+            }
+            if (encabezado.getInt(4) != VERSION) {
+                throw new IOException("Versión de formato no soportada: " + encabezado.getInt(4));
+            }
+            int numVertices = encabezado.getInt(8);
+            int numAristas = encabezado.getInt(12);
+            if (numVertices < 0 || numAristas < 0 || canal.size() != TAMANO_ENCABEZADO + 12L * numAristas) {
+                throw new IOException("Tamaño de archivo inconsistente con el encabezado: " + archivo);
+            }
+
+            ListaAristas aristas = new ListaAristas(numAristas);
+            long inicio = TAMANO_ENCABEZADO;
+            leerArreglo(canal, inicio, aristas.origenes, numAristas);
+            leerArreglo(canal, inicio + 4L * numAristas, aristas.destinos, numAristas);
+            leerArreglo(canal, inicio + 8L * numAristas, aristas.pesos, numAristas);
+            aristas.tamano = numAristas;
+
+            for (int i = 0; i < numAristas; i++) {
+                int mayor = Math.max(aristas.origenes[i], aristas.destinos[i]);
+                if (aristas.origenes[i] < 0 || aristas.destinos[i] < 0 || mayor >= numVertices) {
+                    throw new IOException("Arista " + i + " fuera del rango de vértices: " + archivo);
+                }
+            }
+            aristas.numVertices = numVertices;
+            return aristas;
+        }
+    }
+
+    static void leerArreglo(FileChannel canal, long desde, int[] destino, int cantidad) throws IOException {
+        int leidos = 0;
+        while (leidos < cantidad) {
+            int n = (int) Math.min(cantidad - leidos, TAMANO_VENTANA / 4);
+            IntBuffer ventana = canal.map(FileChannel.MapMode.READ_ONLY, desde + 4L * leidos, 4L * n)
+                    .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            ventana.get(destino, leidos, n);
+            leidos += n;
+        }
+    }
+}
@@ -1,36 +1,56 @@
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 public class CaminosMinimos {
     private static final int INFINITO = Integer.MAX_VALUE;
 
+    // Centinela saturante del Floyd-Warshall por bloques: la suma de dos centinelas no desborda,
+    // por lo que el ciclo interno no necesita comparar contra INFINITO
+    private static final int INFINITO_SATURADO = Integer.MAX_VALUE / 2;
+
+    // Lado de los bloques del Floyd-Warshall por bloques (64 x 64 enteros = 16 KB por bloque)
+    private static final int TAMANO_BLOQUE = 64;
+
+    // Mayor arreglo que admite la JVM: la matriz plana del Floyd-Warshall por bloques tiene
+    // V² celdas, por lo que sirve hasta 46340 vértices
+    private static final long MAXIMO_MATRIZ_PLANA = Integer.MAX_VALUE - 8;
+
+    // Memoria para las filas del oráculo de distancias si no se indica --filas-cache
+    private static final long MEMORIA_ORACULO = 64L << 20;
+
     public static void main(String[] args) {
         if (args.length < 1) {
-            System.out.println("Uso: java CaminosMinimos <archivo_entrada>");
+            System.out.println("Uso: java CaminosMinimos <archivo_entrada> [--dijkstra=monticulo|matriz] [--bellman-ford=cola|pasadas] [--floyd=bloques|clasico] [--johnson] [--hilos=N] [--aceleracion] [--salida=archivo [--formato-salida=texto|varint]] [--metricas=json]");
+            System.out.println("       java CaminosMinimos <archivo_entrada> --algoritmo=dijkstra|bellman-ford|floyd-warshall|johnson|auto [--verificar[=N]] [--semilla=N] [--hilos=N] [--salida=archivo ...]");
+            System.out.println("       java CaminosMinimos <archivo_entrada> --consultas=archivo_consultas [--punto-a-punto=bidireccional|alt|ch|oraculo] [--marcas=N] [--filas-cache=N] [--fuera-del-heap] [--jerarquia=archivo_jerarquia] [--caminos] [--verificar]");
+            System.out.println("       java CaminosMinimos <archivo_entrada> --contraer=archivo_jerarquia [--consultas=archivo_consultas] ...");
             return;
         }
 
         String archivoEntrada = args[0];
-        List<Arista> aristas = new ArrayList<>();
-        int numVertices = 0;
+        int numHilos = Integer.parseInt(obtenerOpcion(args, "--hilos",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        Metricas.activar(obtenerOpcion(args, "--metricas", null));
+        ListaAristas aristas;
 
+        long inicioFase = Metricas.inicio();
         try {
-            // Leer el archivo de entrada
-            BufferedReader br = new BufferedReader(new FileReader(archivoEntrada));
-            String linea;
-            while ((linea = br.readLine()) != null) {
-                String[] partes = linea.trim().split("\\s+");
-                if (partes.length == 3) {
-                    int origen = Integer.parseInt(partes[0]);
-                    int destino = Integer.parseInt(partes[1]);
-                    int peso = Integer.parseInt(partes[2]);
-                    aristas.add(new Arista(origen, destino, peso));
-                    numVertices = Math.max(numVertices, Math.max(origen, destino) + 1);
-                }
-            }
-            br.close();
+            // Leer el archivo de entrada: binario si tiene el encabezado del formato, si no texto
+            // (mapeado en memoria, por tramos en paralelo)
+            if (ArchivoGrafoBinario.esBinario(archivoEntrada)) {
+                aristas = ArchivoGrafoBinario.leer(archivoEntrada);
+            } else {
+                aristas = LectorEnteros.leerAristas(archivoEntrada, 0, 3, numHilos);
+            }
         } catch (IOException e) {
             System.err.println("Error al leer el archivo: " + e.getMessage());
             return;
@@ -39,66 +59,726 @@ public class CaminosMinimos {
             return;
         }
 
-        // Crear la matriz de adyacencia
-        int[][] grafo = new int[numVertices][numVertices];
-        for (int i = 0; i < numVertices; i++) {
-            Arrays.fill(grafo[i], INFINITO);
-            grafo[i][i] = 0; // Distancia a sí mismo es 0
+        Metricas.fase("carga", inicioFase);
+
+        // Crear la representación dispersa (CSR), compartida por Dijkstra y Bellman-Ford
+        inicioFase = Metricas.inicio();
+        int numVertices = aristas.numVertices;
+        GrafoCSR grafoDisperso = GrafoCSR.construirSinRepetidas(numVertices, aristas);
+        Metricas.fase("construccion_grafo", inicioFase);
+        String archivoConsultas = obtenerOpcion(args, "--consultas", null);
+        if (archivoConsultas != null || obtenerOpcion(args, "--contraer", null) != null) {
+            responderConsultas(grafoDisperso, aristas.tamano(), archivoConsultas, args);
+            Metricas.emitir("CaminosMinimos");
+            return;
+        }
+
+        String archivoSalida = obtenerOpcion(args, "--salida", null);
+        boolean salidaVarint = obtenerOpcion(args, "--formato-salida", "texto").equals("varint");
+        if (salidaVarint && archivoSalida == null) {
+            System.err.println("--formato-salida=varint requiere --salida=archivo");
+            return;
+        }
+
+        // Las matrices se escriben fila por fila a medida que se calculan, en la salida
+        // estándar o en el archivo de --salida
+        EscritorMatriz escritor;
+        try {
+            escritor = archivoSalida == null ? EscritorMatriz.salidaEstandar()
+                                             : EscritorMatriz.abrir(archivoSalida, salidaVarint);
+        } catch (IOException e) {
+            System.err.println("Error al escribir el archivo: " + e.getMessage());
+            return;
+        }
+        try (escritor) {
+            calcularTodosLosPares(grafoDisperso, aristas.tamano(), numHilos, escritor, args);
+        } catch (UncheckedIOException e) {
+            System.err.println("Error al escribir el archivo: " + e.getCause().getMessage());
         }
+        Metricas.emitir("CaminosMinimos");
+    }
 
-        for (Arista arista : aristas) {
-            grafo[arista.origen][arista.destino] = arista.peso;
+    /**
+     * Ejecuta los algoritmos de todos los pares, escribe sus matrices, las compara e informa
+     * los tiempos.
+     *
+     * @param grafoDisperso Grafo disperso
+     * @param numAristas Número de aristas leídas
+     * @param numHilos Número de hilos
+     * @param escritor Destino de las matrices
+     * @param args Argumentos del programa (--algoritmo, --dijkstra, --bellman-ford, --floyd,
+     *             --johnson, --aceleracion, --verificar, --semilla, --salida)
+     */
+    private static void calcularTodosLosPares(GrafoCSR grafoDisperso, int numAristas, int numHilos,
+                                              EscritorMatriz escritor, String[] args) {
+        String algoritmo = obtenerOpcion(args, "--algoritmo", "todos");
+        if (!algoritmo.equals("todos")) {
+            calcularConUnAlgoritmo(grafoDisperso, numAristas, numHilos, escritor, algoritmo, args);
+            return;
+        }
+        int numVertices = grafoDisperso.numVertices;
+        String modoDijkstra = obtenerOpcion(args, "--dijkstra", "monticulo");
+        boolean medirAceleracion = tieneOpcion(args, "--aceleracion");
+        String modoFloyd = obtenerOpcion(args, "--floyd", "bloques");
+        String modoBellmanFord = obtenerOpcion(args, "--bellman-ford", "cola");
+        boolean ejecutarJohnson = tieneOpcion(args, "--johnson");
+        String archivoSalida = obtenerOpcion(args, "--salida", null);
+        if (!modoFloyd.equals("clasico") && !cabeMatrizPlana(numVertices)) {
+            System.err.println(errorMatrizPlana(numVertices));
+            return;
         }
 
+        // La matriz de adyacencia solo se necesita para el Floyd-Warshall clásico y el Dijkstra matricial
+        int[][] grafo = modoDijkstra.equals("matriz") || modoFloyd.equals("clasico")
+                ? construirMatriz(grafoDisperso) : null;
+
         System.out.println("Número de vértices: " + numVertices);
-        System.out.println("Número de aristas: " + aristas.size());
+        System.out.println("Número de aristas: " + numAristas);
 
         // Ejecutar y medir tiempo de Dijkstra para todos los vértices
         long inicioDijkstra = System.nanoTime();
-        int[][] resultadoDijkstra = new int[numVertices][numVertices];
-        for (int i = 0; i < numVertices; i++) {
-            resultadoDijkstra[i] = dijkstra(grafo, i, numVertices);
+        Supplier<CalculoFila> calculoDijkstra;
+        if (modoDijkstra.equals("matriz")) {
+            calculoDijkstra = () -> origen -> dijkstra(grafo, origen, numVertices);
+        } else {
+            calculoDijkstra = () -> {
+                // Cada hilo usa su propio montículo como memoria de trabajo
+                MonticuloIndexado monticulo = new MonticuloIndexado(numVertices);
+                return origen -> dijkstraMonticulo(grafoDisperso, origen, monticulo);
+            };
         }
+        escritor.comenzarMatriz("Dijkstra", numVertices);
+        int[][] resultadoDijkstra = todosLosPares(numVertices, numHilos, calculoDijkstra, escritor, null);
+        escritor.terminarMatriz();
         long finDijkstra = System.nanoTime();
         double tiempoDijkstra = (finDijkstra - inicioDijkstra) / 1_000_000.0;
+        Metricas.fase("dijkstra", inicioDijkstra);
 
         // Ejecutar y medir tiempo de Bellman-Ford para todos los vértices
         long inicioBellmanFord = System.nanoTime();
-        int[][] resultadoBellmanFord = new int[numVertices][numVertices];
-        for (int i = 0; i < numVertices; i++) {
-            resultadoBellmanFord[i] = bellmanFord(grafo, i, numVertices);
-        }
+        boolean bellmanFordCola = !modoBellmanFord.equals("pasadas");
+        Supplier<CalculoFila> calculoBellmanFord = () -> origen -> bellmanFord(grafoDisperso, origen, bellmanFordCola);
+        escritor.comenzarMatriz("Bellman-Ford", numVertices);
+        int[][] resultadoBellmanFord = todosLosPares(numVertices, numHilos, calculoBellmanFord, escritor, null);
+        escritor.terminarMatriz();
         long finBellmanFord = System.nanoTime();
         double tiempoBellmanFord = (finBellmanFord - inicioBellmanFord) / 1_000_000.0;
+        Metricas.fase("bellman_ford", inicioBellmanFord);
 
         // Ejecutar y medir tiempo de Floyd-Warshall
         long inicioFloydWarshall = System.nanoTime();
-        int[][] resultadoFloydWarshall = floydWarshall(grafo, numVertices);
+        int[][] resultadoFloydWarshall;
+        if (modoFloyd.equals("clasico")) {
+            resultadoFloydWarshall = floydWarshall(grafo, numVertices);
+        } else {
+            resultadoFloydWarshall = aFilas(floydWarshallBloques(grafoDisperso, numHilos), numVertices);
+        }
+        // Floyd-Warshall obtiene todas las filas a la vez al terminar la última fase
+        escritor.comenzarMatriz("Floyd-Warshall", numVertices);
+        for (int[] fila : resultadoFloydWarshall) {
+            escritor.escribirFila(fila);
+        }
+        escritor.terminarMatriz();
         long finFloydWarshall = System.nanoTime();
         double tiempoFloydWarshall = (finFloydWarshall - inicioFloydWarshall) / 1_000_000.0;
+        Metricas.fase("floyd_warshall", inicioFloydWarshall);
 
-        // Imprimir resultados
-        System.out.println("\nMatriz de costos mínimos (Dijkstra):");
-        imprimirMatriz(resultadoDijkstra);
-
-        System.out.println("\nMatriz de costos mínimos (Bellman-Ford):");
-        imprimirMatriz(resultadoBellmanFord);
-
-        System.out.println("\nMatriz de costos mínimos (Floyd-Warshall):");
-        imprimirMatriz(resultadoFloydWarshall);
+        // Ejecutar y medir tiempo de Johnson, si se solicitó
+        int[][] resultadoJohnson = null;
+        double tiempoJohnson = 0;
+        if (ejecutarJohnson) {
+            long inicioJohnson = System.nanoTime();
+            resultadoJohnson = johnson(grafoDisperso, numHilos, escritor, null);
+            tiempoJohnson = (System.nanoTime() - inicioJohnson) / 1_000_000.0;
+            Metricas.fase("johnson", inicioJohnson);
+        }
 
         // Verificar que los resultados sean iguales
+        long inicioFase = Metricas.inicio();
         boolean sonIguales = compararMatrices(resultadoDijkstra, resultadoBellmanFord) && 
                              compararMatrices(resultadoDijkstra, resultadoFloydWarshall);
         
         System.out.println("\nLos resultados de los tres algoritmos " + 
                           (sonIguales ? "son iguales." : "son diferentes."));
+        if (resultadoJohnson != null) {
+            System.out.println("El resultado de Johnson " +
+                              (compararMatrices(resultadoJohnson, resultadoBellmanFord) ? "es igual" : "es diferente") +
+                              " al de Bellman-Ford.");
+        }
+        Metricas.fase("comparacion", inicioFase);
 
         // Imprimir tiempos de ejecución
         System.out.println("\nTiempos de ejecución:");
         System.out.printf("Dijkstra: %.6f ms\n", tiempoDijkstra);
         System.out.printf("Bellman-Ford: %.6f ms\n", tiempoBellmanFord);
         System.out.printf("Floyd-Warshall: %.6f ms\n", tiempoFloydWarshall);
+        if (resultadoJohnson != null) {
+            System.out.printf("Johnson: %.6f ms\n", tiempoJohnson);
+        } else if (ejecutarJohnson) {
+            // Solo se calcularon los potenciales: Bellman-Ford encontró un ciclo negativo
+            System.out.printf("Johnson: interrumpido por un ciclo negativo tras %.6f ms\n", tiempoJohnson);
+        }
+        System.out.println("Hilos para todos los pares (Dijkstra y Bellman-Ford): " + numHilos);
+        System.out.printf("Escritura de las matrices: %.6f ms (incluida en los tiempos anteriores)\n",
+                escritor.nanosEscritura / 1_000_000.0);
+        if (archivoSalida != null) {
+            System.out.println("Matrices escritas en " + archivoSalida + " (" + escritor.bytesEscritos + " bytes)");
+        }
+        Metricas.sumar("salida.bytes_escritos", escritor.bytesEscritos);
+
+        // Comparar contra la ejecución secuencial
+        if (medirAceleracion) {
+            long inicio = System.nanoTime();
+            int[][] serialDijkstra = todosLosPares(numVertices, 1, calculoDijkstra);
+            double tiempoSerialDijkstra = (System.nanoTime() - inicio) / 1_000_000.0;
+
+            inicio = System.nanoTime();
+            int[][] serialBellmanFord = todosLosPares(numVertices, 1, calculoBellmanFord);
+            double tiempoSerialBellmanFord = (System.nanoTime() - inicio) / 1_000_000.0;
+
+            System.out.println("\nAceleración respecto a la ejecución secuencial:");
+            System.out.printf("Dijkstra: %.6f ms secuencial, %.2fx (%s)\n", tiempoSerialDijkstra,
+                    tiempoSerialDijkstra / tiempoDijkstra,
+                    compararMatrices(serialDijkstra, resultadoDijkstra) ? "resultado idéntico" : "resultado distinto");
+            System.out.printf("Bellman-Ford: %.6f ms secuencial, %.2fx (%s)\n", tiempoSerialBellmanFord,
+                    tiempoSerialBellmanFord / tiempoBellmanFord,
+                    compararMatrices(serialBellmanFord, resultadoBellmanFord) ? "resultado idéntico" : "resultado distinto");
+        }
+    }
+
+    /**
+     * Calcula la matriz de todos los pares con un solo algoritmo (o el que elija auto según el
+     * grafo) y la escribe fila por fila sin conservarla. Con --verificar[=N] se eligen al azar
+     * N filas (por defecto el 1 %, al menos 4), que son las únicas que se conservan, y se
+     * recalculan en paralelo con un segundo algoritmo independiente del primero: Bellman-Ford,
+     * o Dijkstra (la otra variante de Bellman-Ford si hay pesos negativos) cuando el primero
+     * es Bellman-Ford.
+     *
+     * @param grafoDisperso Grafo disperso
+     * @param numAristas Número de aristas leídas
+     * @param numHilos Número de hilos
+     * @param escritor Destino de la matriz
+     * @param algoritmo dijkstra, bellman-ford, floyd-warshall, johnson o auto
+     * @param args Argumentos del programa (--dijkstra, --bellman-ford, --floyd, --verificar,
+     *             --semilla, --salida)
+     */
+    private static void calcularConUnAlgoritmo(GrafoCSR grafoDisperso, int numAristas, int numHilos,
+                                               EscritorMatriz escritor, String algoritmo, String[] args) {
+        int numVertices = grafoDisperso.numVertices;
+        boolean hayNegativos = false;
+        for (int a = 0; a < grafoDisperso.numArcos && !hayNegativos; a++) {
+            hayNegativos = grafoDisperso.pesos[a] < 0;
+        }
+        String motivo = null;
+        if (algoritmo.equals("auto")) {
+            // Con densidad de al menos 1/8, Floyd-Warshall por bloques ya no es más lento que
+            // V ejecuciones de Dijkstra (si su matriz plana cabe en un arreglo); en grafos
+            // dispersos con pesos negativos, Johnson
+            if ((long) grafoDisperso.numArcos * 8 >= (long) numVertices * numVertices
+                    && cabeMatrizPlana(numVertices)) {
+                algoritmo = "floyd-warshall";
+                motivo = "grafo denso";
+            } else if (hayNegativos) {
+                algoritmo = "johnson";
+                motivo = "grafo disperso con pesos negativos";
+            } else {
+                algoritmo = "dijkstra";
+                motivo = "grafo disperso con pesos no negativos";
+            }
+        }
+        String modoDijkstra = obtenerOpcion(args, "--dijkstra", "monticulo");
+        boolean bellmanFordCola = !obtenerOpcion(args, "--bellman-ford", "cola").equals("pasadas");
+        boolean floydClasico = obtenerOpcion(args, "--floyd", "bloques").equals("clasico");
+        String nombre;
+        switch (algoritmo) {
+            case "dijkstra":
+                nombre = "Dijkstra";
+                break;
+            case "bellman-ford":
+                nombre = "Bellman-Ford";
+                break;
+            case "floyd-warshall":
+                nombre = "Floyd-Warshall";
+                break;
+            case "johnson":
+                nombre = "Johnson";
+                break;
+            default:
+                System.err.println("Algoritmo desconocido: " + algoritmo);
+                return;
+        }
+        if (algoritmo.equals("floyd-warshall") && !floydClasico && !cabeMatrizPlana(numVertices)) {
+            System.err.println(errorMatrizPlana(numVertices));
+            return;
+        }
+
+        // Filas de la muestra de verificación: las únicas que se conservan
+        boolean[] enMuestra = null;
+        int tamanoMuestra = 0;
+        long semilla = 0;
+        String opcionVerificar = obtenerOpcion(args, "--verificar", tieneOpcion(args, "--verificar") ? "" : null);
+        if (opcionVerificar != null && numVertices > 0) {
+            tamanoMuestra = opcionVerificar.isEmpty() ? Math.max(4, numVertices / 100)
+                                                      : Integer.parseInt(opcionVerificar);
+            tamanoMuestra = Math.max(1, Math.min(tamanoMuestra, numVertices));
+            semilla = Long.parseLong(obtenerOpcion(args, "--semilla", String.valueOf(System.nanoTime())));
+            enMuestra = new boolean[numVertices];
+            SplittableRandom azar = new SplittableRandom(semilla);
+            for (int elegidas = 0; elegidas < tamanoMuestra; ) {
+                int origen = azar.nextInt(numVertices);
+                if (!enMuestra[origen]) {
+                    enMuestra[origen] = true;
+                    elegidas++;
+                }
+            }
+        }
+
+        System.out.println("Número de vértices: " + numVertices);
+        System.out.println("Número de aristas: " + numAristas);
+        if (motivo != null) {
+            System.out.println("Algoritmo elegido: " + nombre + " (" + motivo + ")");
+        }
+
+        long inicio = System.nanoTime();
+        boolean[] conservar = enMuestra != null ? enMuestra : new boolean[numVertices];
+        int[][] muestra;
+        if (algoritmo.equals("johnson")) {
+            muestra = johnson(grafoDisperso, numHilos, escritor, conservar);
+            if (muestra == null) {
+                return;
+            }
+        } else if (algoritmo.equals("floyd-warshall")) {
+            escritor.comenzarMatriz(nombre, numVertices);
+            muestra = new int[numVertices][];
+            if (floydClasico) {
+                int[][] matriz = floydWarshall(construirMatriz(grafoDisperso), numVertices);
+                for (int i = 0; i < numVertices; i++) {
+                    escritor.escribirFila(matriz[i]);
+                    if (conservar[i]) {
+                        muestra[i] = matriz[i];
+                    }
+                }
+            } else {
+                // Las filas se escriben directamente desde la matriz plana, sin copiarlas
+                int[] matriz = floydWarshallBloques(grafoDisperso, numHilos);
+                for (int i = 0; i < numVertices; i++) {
+                    escritor.escribirFila(matriz, i * numVertices, numVertices);
+                    if (conservar[i]) {
+                        muestra[i] = Arrays.copyOfRange(matriz, i * numVertices, (i + 1) * numVertices);
+                    }
+                }
+            }
+            escritor.terminarMatriz();
+        } else {
+            Supplier<CalculoFila> calculo;
+            if (algoritmo.equals("bellman-ford")) {
+                calculo = () -> origen -> bellmanFord(grafoDisperso, origen, bellmanFordCola);
+            } else if (modoDijkstra.equals("matriz")) {
+                int[][] grafo = construirMatriz(grafoDisperso);
+                calculo = () -> origen -> dijkstra(grafo, origen, numVertices);
+            } else {
+                calculo = () -> {
+                    MonticuloIndexado monticulo = new MonticuloIndexado(numVertices);
+                    return origen -> dijkstraMonticulo(grafoDisperso, origen, monticulo);
+                };
+            }
+            escritor.comenzarMatriz(nombre, numVertices);
+            muestra = todosLosPares(numVertices, numHilos, calculo, escritor, conservar);
+            escritor.terminarMatriz();
+        }
+        double tiempoCalculo = (System.nanoTime() - inicio) / 1_000_000.0;
+        Metricas.fase(algoritmo.replace('-', '_'), inicio);
+
+        double tiempoVerificacion = 0;
+        if (enMuestra != null) {
+            // El segundo algoritmo solo calcula las filas de la muestra, repartidas entre los hilos
+            inicio = System.nanoTime();
+            boolean[] filasMuestra = enMuestra;
+            String referencia;
+            Supplier<CalculoFila> calculoReferencia;
+            if (!algoritmo.equals("bellman-ford")) {
+                referencia = "Bellman-Ford";
+                calculoReferencia = () -> origen -> !filasMuestra[origen] ? null
+                        : bellmanFordCola(grafoDisperso, origen).distancias;
+            } else if (!hayNegativos) {
+                referencia = "Dijkstra";
+                calculoReferencia = () -> {
+                    MonticuloIndexado monticulo = new MonticuloIndexado(numVertices);
+                    return origen -> !filasMuestra[origen] ? null
+                            : dijkstraMonticulo(grafoDisperso, origen, monticulo);
+                };
+            } else {
+                referencia = bellmanFordCola ? "Bellman-Ford por pasadas" : "Bellman-Ford con cola";
+                calculoReferencia = () -> origen -> !filasMuestra[origen] ? null
+                        : bellmanFordCola ? bellmanFordPasadas(grafoDisperso, origen).distancias
+                                          : bellmanFordCola(grafoDisperso, origen).distancias;
+            }
+            int[][] filasReferencia = todosLosPares(numVertices, numHilos, calculoReferencia);
+            int diferentes = 0;
+            int primeraDiferente = -1;
+            for (int i = 0; i < numVertices; i++) {
+                if (enMuestra[i] && !Arrays.equals(muestra[i], filasReferencia[i])) {
+                    diferentes++;
+                    if (primeraDiferente == -1) {
+                        primeraDiferente = i;
+                    }
+                }
+            }
+            tiempoVerificacion = (System.nanoTime() - inicio) / 1_000_000.0;
+            Metricas.fase("verificacion", inicio);
+            Metricas.sumar("verificacion.filas", tamanoMuestra);
+            Metricas.sumar("verificacion.filas_diferentes", diferentes);
+            System.out.println("\nVerificación de " + tamanoMuestra + " filas al azar (semilla " + semilla +
+                    ") contra " + referencia + ": " + (diferentes == 0 ? "todas coinciden."
+                    : diferentes + " filas diferentes (la primera, la del origen " + primeraDiferente + ")."));
+        }
+
+        System.out.println("\nTiempos de ejecución:");
+        System.out.printf("%s: %.6f ms\n", nombre, tiempoCalculo);
+        if (enMuestra != null) {
+            System.out.printf("Verificación: %.6f ms (%.1f %% del cálculo)\n", tiempoVerificacion,
+                    tiempoCalculo == 0 ? 0.0 : 100 * tiempoVerificacion / tiempoCalculo);
+        }
+        System.out.println("Hilos: " + numHilos);
+        System.out.printf("Escritura de la matriz: %.6f ms (incluida en el tiempo anterior)\n",
+                escritor.nanosEscritura / 1_000_000.0);
+        String archivoSalida = obtenerOpcion(args, "--salida", null);
+        if (archivoSalida != null) {
+            System.out.println("Matriz escrita en " + archivoSalida + " (" + escritor.bytesEscritos + " bytes)");
+        }
+        Metricas.sumar("salida.bytes_escritos", escritor.bytesEscritos);
+    }
+
+    /**
+     * Calcula la matriz de todos los pares ejecutando un algoritmo de origen único por cada
+     * vértice. Con más de un hilo, los orígenes se reparten dinámicamente entre los hilos
+     * de un pool; cada hilo obtiene su propio CalculoFila (y su memoria de trabajo) de la
+     * fábrica. El resultado es idéntico al de la ejecución secuencial.
+     */
+    private static int[][] todosLosPares(int numVertices, int numHilos, Supplier<CalculoFila> fabrica) {
+        return todosLosPares(numVertices, numHilos, fabrica, null, null);
+    }
+
+    /**
+     * Como todosLosPares, pero además escribe cada fila en cuanto se puede escribir en orden:
+     * el hilo que termina una fila vuelca también las siguientes que ya estén listas, de modo
+     * que la escritura se solapa con el cálculo de las filas posteriores.
+     *
+     * @param escritor Destino de las filas, o null para no escribirlas
+     * @param conservar Filas que se devuelven (las demás quedan en null una vez escritas), o
+     *                  null para devolverlas todas
+     */
+    private static int[][] todosLosPares(int numVertices, int numHilos, Supplier<CalculoFila> fabrica,
+                                         EscritorMatriz escritor, boolean[] conservar) {
+        int[][] resultado = new int[numVertices][];
+        if (numHilos <= 1 || numVertices <= 1) {
+            CalculoFila calculo = fabrica.get();
+            for (int i = 0; i < numVertices; i++) {
+                int[] fila = calculo.calcular(i);
+                if (escritor != null) {
+                    escritor.escribirFila(fila);
+                }
+                if (conservar == null || conservar[i]) {
+                    resultado[i] = fila;
+                }
+            }
+            return resultado;
+        }
+
+        AtomicInteger siguienteOrigen = new AtomicInteger();
+        int[] siguienteAEscribir = new int[1];
+        ExecutorService ejecutor = Executors.newFixedThreadPool(Math.min(numHilos, numVertices));
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int h = 0; h < Math.min(numHilos, numVertices); h++) {
+                tareas.add(ejecutor.submit(() -> {
+                    CalculoFila calculo = fabrica.get();
+                    int origen;
+                    while ((origen = siguienteOrigen.getAndIncrement()) < numVertices) {
+                        int[] fila = calculo.calcular(origen);
+                        if (escritor == null) {
+                            if (conservar == null || conservar[origen]) {
+                                resultado[origen] = fila;
+                            }
+                            continue;
+                        }
+                        synchronized (siguienteAEscribir) {
+                            resultado[origen] = fila;
+                            while (siguienteAEscribir[0] < numVertices && resultado[siguienteAEscribir[0]] != null) {
+                                int i = siguienteAEscribir[0]++;
+                                escritor.escribirFila(resultado[i]);
+                                if (conservar != null && !conservar[i]) {
+                                    resultado[i] = null;
+                                }
+                            }
+                        }
+                    }
+                }));
+            }
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Cálculo de todos los pares interrumpido", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw (UncheckedIOException) e.getCause();
+            }
+            throw new IllegalStateException("Error en el cálculo de todos los pares", e.getCause());
+        } finally {
+            ejecutor.shutdown();
+        }
+        return resultado;
+    }
+
+    /**
+     * Responde las consultas de origen y destino del archivo (una por línea, "origen destino")
+     * sin calcular la matriz de todos los pares. Con pesos negativos se reponderan primero las
+     * aristas con los potenciales de Johnson. En el modo ch la jerarquía de contracción se
+     * construye en memoria, se carga de --jerarquia o se construye y se guarda en --contraer;
+     * sin archivo de consultas solo se construye y se guarda.
+     *
+     * @param grafoDisperso Grafo disperso
+     * @param numAristas Número de aristas leídas
+     * @param archivoConsultas Archivo de consultas, o null
+     * @param args Argumentos del programa (--punto-a-punto, --marcas, --filas-cache,
+     *             --fuera-del-heap, --jerarquia, --contraer, --caminos, --hilos, --verificar)
+     */
+    private static void responderConsultas(GrafoCSR grafoDisperso, int numAristas, String archivoConsultas, String[] args) {
+        int numVertices = grafoDisperso.numVertices;
+        String archivoJerarquia = obtenerOpcion(args, "--jerarquia", null);
+        String archivoContraccion = obtenerOpcion(args, "--contraer", null);
+        String modo = obtenerOpcion(args, "--punto-a-punto",
+                archivoJerarquia != null || archivoContraccion != null ? "ch" : "bidireccional");
+        boolean usarALT = modo.equals("alt");
+        boolean usarCH = modo.equals("ch");
+        boolean usarOraculo = modo.equals("oraculo");
+        boolean mostrarCaminos = usarCH && tieneOpcion(args, "--caminos");
+        ListaAristas consultas = new ListaAristas(0);
+        try {
+            if (archivoConsultas != null) {
+                consultas = LectorEnteros.leerAristas(archivoConsultas, 0, 2, 1);
+            }
+        } catch (IOException e) {
+            System.err.println("Error al leer el archivo: " + e.getMessage());
+            return;
+        } catch (NumberFormatException e) {
+            System.err.println("Error en el formato del archivo: " + e.getMessage());
+            return;
+        }
+        for (int i = 0; i < consultas.tamano(); i++) {
+            if (consultas.origenes[i] >= numVertices || consultas.destinos[i] >= numVertices) {
+                System.err.println("Error en el formato del archivo: vértice fuera de rango en la consulta " +
+                        consultas.origenes[i] + " " + consultas.destinos[i]);
+                return;
+            }
+        }
+
+        System.out.println("Número de vértices: " + numVertices);
+        System.out.println("Número de aristas: " + numAristas);
+
+        long inicio = System.nanoTime();
+        boolean hayNegativos = false;
+        for (int a = 0; a < grafoDisperso.numArcos && !hayNegativos; a++) {
+            hayNegativos = grafoDisperso.pesos[a] < 0;
+        }
+        ConsultasPuntoAPunto buscador = null;
+        JerarquiaContraccion jerarquia = null;
+        OraculoDistancias oraculo = null;
+        long[] asentadosOraculo = new long[1];
+        if (usarCH && archivoJerarquia != null) {
+            try {
+                jerarquia = JerarquiaContraccion.leer(archivoJerarquia);
+            } catch (IOException e) {
+                System.err.println("Error al leer el archivo: " + e.getMessage());
+                return;
+            }
+            if (jerarquia.numVertices != numVertices) {
+                System.err.println("Error en el formato del archivo: la jerarquía tiene " + jerarquia.numVertices +
+                        " vértices y el grafo " + numVertices);
+                return;
+            }
+        } else {
+            int[] potencial = null;
+            GrafoCSR grafoConsultas = grafoDisperso;
+            if (hayNegativos) {
+                potencial = potencialesJohnson(grafoDisperso);
+                if (potencial == null) {
+                    return;
+                }
+                grafoConsultas = reponderar(grafoDisperso, potencial);
+            }
+            if (usarCH) {
+                jerarquia = JerarquiaContraccion.construir(grafoConsultas, potencial);
+            } else if (usarOraculo) {
+                // Filas completas de Dijkstra (Johnson si hay pesos negativos) calculadas a
+                // pedido y guardadas en una caché de --filas-cache filas
+                int numFilas = Math.max(1, Integer.parseInt(obtenerOpcion(args, "--filas-cache",
+                        String.valueOf(OraculoDistancias.filasParaMemoria(numVertices, MEMORIA_ORACULO)))));
+                GrafoCSR grafoFilas = grafoConsultas;
+                int[] h = potencial;
+                MonticuloIndexado monticulo = new MonticuloIndexado(numVertices);
+                oraculo = new OraculoDistancias(numVertices, (origen, fila) -> {
+                    if (h == null) {
+                        dijkstraMonticulo(grafoFilas, origen, monticulo, fila);
+                    } else {
+                        dijkstraJohnson(grafoFilas, h, origen, monticulo, fila);
+                    }
+                    for (int d : fila) {
+                        if (d != INFINITO) {
+                            asentadosOraculo[0]++;
+                        }
+                    }
+                }, numFilas, tieneOpcion(args, "--fuera-del-heap"));
+            } else {
+                buscador = new ConsultasPuntoAPunto(grafoConsultas, potencial);
+                if (usarALT) {
+                    buscador.prepararMarcas(Integer.parseInt(obtenerOpcion(args, "--marcas", "8")));
+                }
+            }
+        }
+        double tiempoPreparacion = (System.nanoTime() - inicio) / 1_000_000.0;
+        Metricas.fase("preparacion", inicio);
+
+        if (jerarquia != null) {
+            System.out.println("Atajos de la jerarquía de contracción: " + jerarquia.numAtajos());
+        }
+        if (usarCH && archivoJerarquia == null && archivoContraccion != null) {
+            try {
+                jerarquia.escribir(archivoContraccion);
+            } catch (IOException e) {
+                System.err.println("Error al escribir el archivo: " + e.getMessage());
+                return;
+            }
+            System.out.println("Jerarquía guardada en " + archivoContraccion);
+        }
+        if (archivoConsultas == null) {
+            System.out.printf("\nPreparación: %.6f ms\n", tiempoPreparacion);
+            return;
+        }
+
+        int[] distancias = new int[consultas.tamano()];
+        int[][] caminos = mostrarCaminos ? new int[consultas.tamano()][] : null;
+        long totalAsentados = 0;
+        inicio = System.nanoTime();
+        for (int i = 0; i < consultas.tamano(); i++) {
+            int origen = consultas.origenes[i];
+            int destino = consultas.destinos[i];
+            if (usarCH) {
+                distancias[i] = jerarquia.distancia(origen, destino);
+                if (mostrarCaminos) {
+                    caminos[i] = jerarquia.ultimoCamino();
+                }
+                totalAsentados += jerarquia.verticesAsentados;
+            } else if (usarOraculo) {
+                distancias[i] = oraculo.distancia(origen, destino);
+            } else {
+                distancias[i] = usarALT ? buscador.distanciaALT(origen, destino)
+                                        : buscador.distanciaBidireccional(origen, destino);
+                totalAsentados += buscador.verticesAsentados;
+            }
+        }
+        double tiempoConsultas = (System.nanoTime() - inicio) / 1_000_000.0;
+        Metricas.fase("consultas", inicio);
+        if (usarOraculo) {
+            // Dijkstra asienta todos los vértices alcanzables de cada fila calculada
+            totalAsentados = asentadosOraculo[0];
+            oraculo.registrarMetricas();
+        }
+        Metricas.sumar("consultas.respondidas", consultas.tamano());
+        Metricas.sumar("consultas.vertices_asentados", totalAsentados);
+
+        String descripcion = usarCH ? "jerarquía de contracción"
+                : usarOraculo ? "oráculo con caché de " + oraculo.capacidad() + " filas"
+                : usarALT ? "ALT con " + buscador.marcas.length + " marcas" : "Dijkstra bidireccional";
+        System.out.println("\nDistancias mínimas (" + descripcion + "):");
+        for (int i = 0; i < consultas.tamano(); i++) {
+            StringBuilder linea = new StringBuilder();
+            linea.append(consultas.origenes[i]).append(" -> ").append(consultas.destinos[i]).append(": ")
+                 .append(distancias[i] == INFINITO ? "INF" : String.valueOf(distancias[i]));
+            if (mostrarCaminos && caminos[i] != null) {
+                linea.append(" (camino:");
+                for (int v : caminos[i]) {
+                    linea.append(' ').append(v);
+                }
+                linea.append(')');
+            }
+            System.out.println(linea);
+        }
+
+        if (tieneOpcion(args, "--verificar")) {
+            // Una fila completa por cada origen distinto, con el algoritmo de origen único
+            long inicioVerificacion = Metricas.inicio();
+            int numHilos = Integer.parseInt(obtenerOpcion(args, "--hilos",
+                    String.valueOf(Runtime.getRuntime().availableProcessors())));
+            boolean[] esOrigen = new boolean[numVertices];
+            for (int i = 0; i < consultas.tamano(); i++) {
+                esOrigen[consultas.origenes[i]] = true;
+            }
+            boolean conNegativos = hayNegativos;
+            int[][] filas = todosLosPares(numVertices, numHilos, () -> {
+                MonticuloIndexado monticulo = new MonticuloIndexado(numVertices);
+                return origen -> !esOrigen[origen] ? null
+                        : conNegativos ? bellmanFordCola(grafoDisperso, origen).distancias
+                        : dijkstraMonticulo(grafoDisperso, origen, monticulo);
+            });
+            int diferentes = 0;
+            int caminosInvalidos = 0;
+            for (int i = 0; i < consultas.tamano(); i++) {
+                if (filas[consultas.origenes[i]][consultas.destinos[i]] != distancias[i]) {
+                    diferentes++;
+                }
+                if (mostrarCaminos && caminos[i] != null && !esCaminoDe(grafoDisperso, caminos[i],
+                        consultas.origenes[i], consultas.destinos[i], distancias[i])) {
+                    caminosInvalidos++;
+                }
+            }
+            System.out.println("\nVerificación contra " + (conNegativos ? "Bellman-Ford" : "Dijkstra") + ": " +
+                    (diferentes == 0 ? "todas las distancias coinciden." : diferentes + " distancias diferentes."));
+            if (mostrarCaminos) {
+                System.out.println("Caminos desempaquetados: " +
+                        (caminosInvalidos == 0 ? "todos son caminos del grafo con la distancia informada."
+                                               : caminosInvalidos + " caminos inválidos."));
+            }
+            Metricas.fase("verificacion", inicioVerificacion);
+        }
+
+        System.out.println("\nTiempos de ejecución:");
+        System.out.printf("Preparación: %.6f ms\n", tiempoPreparacion);
+        System.out.printf("Consultas: %.6f ms (%.6f ms por consulta)\n", tiempoConsultas,
+                consultas.tamano() == 0 ? 0.0 : tiempoConsultas / consultas.tamano());
+        System.out.printf("Vértices asentados por consulta: %.1f de %d\n",
+                consultas.tamano() == 0 ? 0.0 : (double) totalAsentados / consultas.tamano(), numVertices);
+        if (usarOraculo) {
+            System.out.printf("Caché del oráculo: %d aciertos, %d fallos, %d expulsiones (%d de %d filas, %.1f MB %s)\n",
+                    oraculo.aciertos, oraculo.fallos, oraculo.expulsiones, oraculo.filasEnCache(),
+                    oraculo.capacidad(), oraculo.bytesEnCache() / 1048576.0,
+                    tieneOpcion(args, "--fuera-del-heap") ? "fuera del heap" : "en el heap");
+        }
+    }
+
+    /**
+     * Indica si los vértices forman un camino del grafo desde el origen hasta el destino cuyo
+     * costo total es la distancia dada.
+     */
+    private static boolean esCaminoDe(GrafoCSR grafo, int[] camino, int origen, int destino, int distancia) {
+        if (camino[0] != origen || camino[camino.length - 1] != destino) {
+            return false;
+        }
+        long costo = 0;
+        for (int i = 0; i + 1 < camino.length; i++) {
+            int u = camino[i];
+            int a = grafo.desplazamientos[u];
+            while (a < grafo.desplazamientos[u + 1] && grafo.destinos[a] != camino[i + 1]) {
+                a++;
+            }
+            if (a == grafo.desplazamientos[u + 1]) {
+                return false;
+            }
+            costo += grafo.pesos[a];
+        }
+        return costo == distancia;
     }
 
     // Algoritmo de Dijkstra para un vértice origen
@@ -109,6 +789,7 @@ public class CaminosMinimos {
         Arrays.fill(distancias, INFINITO);
         distancias[origen] = 0;
         
+        long relajaciones = 0;
         for (int i = 0; i < numVertices - 1; i++) {
             int u = obtenerVerticeMinimo(distancias, visitados, numVertices);
             visitados[u] = true;
@@ -118,9 +799,12 @@ public class CaminosMinimos {
                     distancias[u] != INFINITO && 
                     distancias[u] + grafo[u][v] < distancias[v]) {
                     distancias[v] = distancias[u] + grafo[u][v];
+                    relajaciones++;
                 }
             }
         }
+        Metricas.sumar("dijkstra.extracciones", Math.max(0, numVertices - 1));
+        Metricas.sumar("dijkstra.relajaciones", relajaciones);
         
         return distancias;
     }
@@ -140,48 +824,192 @@ public class CaminosMinimos {
         return indiceMinimo;
     }
     
-    // Algoritmo de Bellman-Ford para un vértice origen
-    private static int[] bellmanFord(int[][] grafo, int origen, int numVertices) {
-        int[] distancias = new int[numVertices];
+    // Algoritmo de Dijkstra con montículo indexado sobre el grafo disperso: O(E log V)
+    static int[] dijkstraMonticulo(GrafoCSR grafo, int origen, MonticuloIndexado monticulo) {
+        return dijkstraMonticulo(grafo, origen, monticulo, new int[grafo.numVertices]);
+    }
+
+    // Igual que el anterior, pero escribe las distancias en el arreglo dado (de V enteros)
+    static int[] dijkstraMonticulo(GrafoCSR grafo, int origen, MonticuloIndexado monticulo, int[] distancias) {
         Arrays.fill(distancias, INFINITO);
         distancias[origen] = 0;
-        
-        // Convertir la matriz de adyacencia a una lista de aristas para Bellman-Ford
-        List<Arista> aristas = new ArrayList<>();
-        for (int i = 0; i < numVertices; i++) {
-            for (int j = 0; j < numVertices; j++) {
-                if (i != j && grafo[i][j] != INFINITO) {
-                    aristas.add(new Arista(i, j, grafo[i][j]));
+
+        monticulo.limpiar();
+        monticulo.insertarODisminuir(origen, 0);
+
+        long extracciones = 0;
+        long relajaciones = 0;
+        while (!monticulo.estaVacio()) {
+            int u = monticulo.extraerMinimo();
+            int distanciaU = distancias[u];
+            extracciones++;
+
+            for (int a = grafo.desplazamientos[u]; a < grafo.desplazamientos[u + 1]; a++) {
+                int v = grafo.destinos[a];
+                int nuevaDistancia = distanciaU + grafo.pesos[a];
+                // Un vértice ya extraído no vuelve al montículo aunque un peso negativo
+                // mejore su distancia, como en la versión matricial
+                if (nuevaDistancia < distancias[v] && !monticulo.fueExtraido(v)) {
+                    distancias[v] = nuevaDistancia;
+                    monticulo.insertarODisminuir(v, nuevaDistancia);
+                    relajaciones++;
                 }
             }
         }
+        Metricas.sumar("dijkstra.extracciones", extracciones);
+        Metricas.sumar("dijkstra.relajaciones", relajaciones);
+
+        return distancias;
+    }
+
+    // Algoritmo de Bellman-Ford para un vértice origen, sobre los arcos del grafo disperso
+    private static int[] bellmanFord(GrafoCSR grafo, int origen, boolean usarCola) {
+        ResultadoBellmanFord resultado = usarCola ? bellmanFordCola(grafo, origen)
+                                                  : bellmanFordPasadas(grafo, origen);
+        Metricas.sumar("bellman_ford.relajaciones", resultado.numRelajaciones);
+        Metricas.sumar("bellman_ford.arcos_revisados", resultado.numArcosRevisados);
+        
+        if (resultado.cicloNegativo != null) {
+            System.err.println("El grafo contiene un ciclo de peso negativo: " + resultado.describirCiclo());
+        }
         
-        // Relajación de aristas
-        for (int i = 1; i < numVertices; i++) {
-            for (Arista arista : aristas) {
-                int u = arista.origen;
-                int v = arista.destino;
-                int peso = arista.peso;
+        return resultado.distancias;
+    }
+    
+    /**
+     * Bellman-Ford por pasadas sobre el arreglo de arcos compartido del grafo disperso.
+     * Termina en cuanto una pasada completa no relaja ninguna arista.
+     *
+     * @param grafo Grafo disperso
+     * @param origen Vértice origen
+     * @return Distancias, predecesores y el ciclo negativo alcanzable desde el origen, si existe
+     */
+    static ResultadoBellmanFord bellmanFordPasadas(GrafoCSR grafo, int origen) {
+        int numVertices = grafo.numVertices;
+        ResultadoBellmanFord resultado = new ResultadoBellmanFord(numVertices, origen);
+        int[] distancias = resultado.distancias;
+        int[] predecesores = resultado.predecesores;
+        
+        // Relajación de aristas, a lo sumo V - 1 pasadas
+        boolean huboCambio = true;
+        for (int i = 1; i < numVertices && huboCambio; i++) {
+            huboCambio = false;
+            resultado.numArcosRevisados += grafo.numArcos;
+            for (int a = 0; a < grafo.numArcos; a++) {
+                int u = grafo.origenes[a];
+                int v = grafo.destinos[a];
+                int peso = grafo.pesos[a];
                 
                 if (distancias[u] != INFINITO && distancias[u] + peso < distancias[v]) {
                     distancias[v] = distancias[u] + peso;
+                    predecesores[v] = u;
+                    resultado.numRelajaciones++;
+                    huboCambio = true;
                 }
             }
         }
         
-        // Verificar ciclos negativos (no debería haber en este problema)
-        for (Arista arista : aristas) {
-            int u = arista.origen;
-            int v = arista.destino;
-            int peso = arista.peso;
+        // Verificar ciclos negativos: solo puede haberlos si la última pasada relajó algo
+        if (huboCambio) {
+            for (int a = 0; a < grafo.numArcos; a++) {
+                int u = grafo.origenes[a];
+                int v = grafo.destinos[a];
+                int peso = grafo.pesos[a];
+                
+                if (distancias[u] != INFINITO && distancias[u] + peso < distancias[v]) {
+                    predecesores[v] = u;
+                    resultado.cicloNegativo = extraerCiclo(predecesores, v, numVertices);
+                    break;
+                }
+            }
+        }
+        
+        return resultado;
+    }
+    
+    /**
+     * Bellman-Ford con cola (SPFA): solo se vuelven a revisar las aristas de los vértices cuya
+     * distancia cambió. Para cada vértice se cuenta el número de aristas del camino que lo
+     * relajó; si llega a V, el camino repite un vértice y hay un ciclo negativo.
+     *
+     * @param grafo Grafo disperso
+     * @param origen Vértice origen
+     * @return Distancias, predecesores y el ciclo negativo alcanzable desde el origen, si existe
+     */
+    static ResultadoBellmanFord bellmanFordCola(GrafoCSR grafo, int origen) {
+        int numVertices = grafo.numVertices;
+        ResultadoBellmanFord resultado = new ResultadoBellmanFord(numVertices, origen);
+        int[] distancias = resultado.distancias;
+        int[] predecesores = resultado.predecesores;
+        int[] longitudCamino = new int[numVertices];
+        boolean[] enCola = new boolean[numVertices];
+        
+        // Cola circular: cada vértice está a lo sumo una vez en la cola
+        int[] cola = new int[numVertices];
+        int cabeza = 0;
+        int tamanoCola = 0;
+        cola[0] = origen;
+        tamanoCola = 1;
+        enCola[origen] = true;
+        
+        while (tamanoCola > 0) {
+            int u = cola[cabeza];
+            cabeza = cabeza + 1 == numVertices ? 0 : cabeza + 1;
+            tamanoCola--;
+            enCola[u] = false;
+            resultado.numArcosRevisados += grafo.desplazamientos[u + 1] - grafo.desplazamientos[u];
             
-            if (distancias[u] != INFINITO && distancias[u] + peso < distancias[v]) {
-                System.err.println("El grafo contiene un ciclo de peso negativo");
-                break;
+            for (int a = grafo.desplazamientos[u]; a < grafo.desplazamientos[u + 1]; a++) {
+                int v = grafo.destinos[a];
+                int nuevaDistancia = distancias[u] + grafo.pesos[a];
+                if (nuevaDistancia < distancias[v]) {
+                    distancias[v] = nuevaDistancia;
+                    predecesores[v] = u;
+                    resultado.numRelajaciones++;
+                    
+                    longitudCamino[v] = longitudCamino[u] + 1;
+                    if (longitudCamino[v] >= numVertices) {
+                        resultado.cicloNegativo = extraerCiclo(predecesores, v, numVertices);
+                        return resultado;
+                    }
+                    
+                    if (!enCola[v]) {
+                        int fin = cabeza + tamanoCola;
+                        cola[fin >= numVertices ? fin - numVertices : fin] = v;
+                        tamanoCola++;
+                        enCola[v] = true;
+                    }
+                }
             }
         }
         
-        return distancias;
+        return resultado;
+    }
+    
+    /**
+     * Recupera el ciclo negativo a partir de un vértice relajado después de V - 1 pasadas:
+     * retroceder V veces por los predecesores garantiza caer dentro del ciclo.
+     *
+     * @return Vértices del ciclo en el orden en que se recorren sus aristas
+     */
+    private static int[] extraerCiclo(int[] predecesores, int vertice, int numVertices) {
+        int v = vertice;
+        for (int i = 0; i < numVertices; i++) {
+            v = predecesores[v];
+        }
+        
+        int longitud = 1;
+        for (int u = predecesores[v]; u != v; u = predecesores[u]) {
+            longitud++;
+        }
+        
+        int[] ciclo = new int[longitud];
+        int u = v;
+        for (int i = longitud - 1; i >= 0; i--) {
+            ciclo[i] = u;
+            u = predecesores[u];
+        }
+        return ciclo;
     }
     
     // Algoritmo de Floyd-Warshall
@@ -210,19 +1038,216 @@ public class CaminosMinimos {
         return distancias;
     }
     
-    // Método para imprimir una matriz
-    private static void imprimirMatriz(int[][] matriz) {
-        for (int i = 0; i < matriz.length; i++) {
-            for (int j = 0; j < matriz[i].length; j++) {
-                if (matriz[i][j] == INFINITO) {
-                    System.out.print("INF\t");
-                } else {
-                    System.out.print(matriz[i][j] + "\t");
+    /**
+     * Algoritmo de Johnson para todos los pares con pesos posiblemente negativos.
+     * Una sola ejecución de Bellman-Ford desde un vértice virtual (unido con peso 0 a todos
+     * los demás) calcula los potenciales h; con ellos cada arista (u, v) se repondera como
+     * w + h[u] - h[v] >= 0 y se ejecuta Dijkstra con montículo desde cada origen, en paralelo.
+     * Complejidad: O(V·E log V).
+     *
+     * @param grafo Grafo disperso
+     * @param numHilos Número de hilos para las ejecuciones de Dijkstra
+     * @param escritor Destino de las filas a medida que se calculan (la matriz sólo se comienza
+     *                 si no hay ciclo negativo)
+     * @param conservar Filas que se devuelven, o null para devolverlas todas
+     * @return Matriz de distancias mínimas, o null si el grafo contiene un ciclo negativo
+     */
+    private static int[][] johnson(GrafoCSR grafo, int numHilos, EscritorMatriz escritor, boolean[] conservar) {
+        int numVertices = grafo.numVertices;
+        int[] h = potencialesJohnson(grafo);
+        if (h == null) {
+            return null;
+        }
+        GrafoCSR reponderado = reponderar(grafo, h);
+
+        escritor.comenzarMatriz("Johnson", numVertices);
+        int[][] resultado = todosLosPares(numVertices, numHilos, () -> {
+            MonticuloIndexado monticulo = new MonticuloIndexado(numVertices);
+            return origen -> dijkstraJohnson(reponderado, h, origen, monticulo);
+        }, escritor, conservar);
+        escritor.terminarMatriz();
+        return resultado;
+    }
+
+    /**
+     * Fila de distancias desde el origen en el grafo original, calculada con Dijkstra sobre el
+     * grafo reponderado y corregida con los potenciales.
+     *
+     * @param reponderado Grafo reponderado con los potenciales h
+     * @param h Potenciales de Johnson
+     * @param origen Vértice origen
+     * @param monticulo Montículo de trabajo
+     */
+    private static int[] dijkstraJohnson(GrafoCSR reponderado, int[] h, int origen, MonticuloIndexado monticulo) {
+        return dijkstraJohnson(reponderado, h, origen, monticulo, new int[reponderado.numVertices]);
+    }
+
+    // Igual que el anterior, pero escribe las distancias en el arreglo dado (de V enteros)
+    private static int[] dijkstraJohnson(GrafoCSR reponderado, int[] h, int origen, MonticuloIndexado monticulo,
+                                         int[] distancias) {
+        dijkstraMonticulo(reponderado, origen, monticulo, distancias);
+        for (int v = 0; v < distancias.length; v++) {
+            if (distancias[v] != INFINITO) {
+                distancias[v] = distancias[v] - h[origen] + h[v];
+            }
+        }
+        return distancias;
+    }
+
+    /**
+     * Potenciales de Johnson: distancias desde un vértice virtual unido con peso 0 a todos los
+     * demás, calculadas con una sola ejecución de Bellman-Ford.
+     *
+     * @param grafo Grafo disperso
+     * @return Potencial de cada vértice, o null si el grafo contiene un ciclo negativo
+     */
+    private static int[] potencialesJohnson(GrafoCSR grafo) {
+        int numVertices = grafo.numVertices;
+
+        // Grafo aumentado con el vértice virtual numVertices
+        ListaAristas aumentadas = new ListaAristas(grafo.numArcos + numVertices);
+        for (int a = 0; a < grafo.numArcos; a++) {
+            aumentadas.agregar(grafo.origenes[a], grafo.destinos[a], grafo.pesos[a]);
+        }
+        for (int v = 0; v < numVertices; v++) {
+            aumentadas.agregar(numVertices, v, 0);
+        }
+        ResultadoBellmanFord potenciales = bellmanFordCola(GrafoCSR.construir(numVertices + 1, aumentadas), numVertices);
+        if (potenciales.tieneCicloNegativo()) {
+            System.err.println("El grafo contiene un ciclo de peso negativo: " + potenciales.describirCiclo());
+            return null;
+        }
+        return Arrays.copyOf(potenciales.distancias, numVertices);
+    }
+
+    // Reponderar las aristas con los potenciales para que todos los pesos sean no negativos
+    private static GrafoCSR reponderar(GrafoCSR grafo, int[] h) {
+        int[] pesosReponderados = new int[grafo.numArcos];
+        for (int a = 0; a < grafo.numArcos; a++) {
+            pesosReponderados[a] = grafo.pesos[a] + h[grafo.origenes[a]] - h[grafo.destinos[a]];
+        }
+        return grafo.conPesos(pesosReponderados);
+    }
+
+    /**
+     * Floyd-Warshall por bloques sobre una matriz plana int[] en orden de filas.
+     * Para cada bloque k de la diagonal se procesa primero el bloque (k, k), luego en
+     * paralelo los bloques de la fila y la columna k, y por último en paralelo el resto
+     * de los bloques. Cada bloque cabe en la caché y el ciclo interno es un mínimo sin
+     * saltos sobre el centinela INFINITO_SATURADO, lo que permite vectorizarlo.
+     * Supone que ningún camino mínimo supera en valor absoluto INFINITO_SATURADO / 2.
+     *
+     * @param grafo Grafo disperso
+     * @param numHilos Número de hilos para las fases paralelas
+     * @return Matriz plana de distancias, con INFINITO para los pares sin camino
+     * @throws IllegalArgumentException si la matriz plana no cabe en un arreglo
+     */
+    static int[] floydWarshallBloques(GrafoCSR grafo, int numHilos) {
+        int n = grafo.numVertices;
+        if (!cabeMatrizPlana(n)) {
+            throw new IllegalArgumentException(errorMatrizPlana(n));
+        }
+        int[] distancias = new int[n * n];
+        Arrays.fill(distancias, INFINITO_SATURADO);
+        for (int i = 0; i < n; i++) {
+            distancias[i * n + i] = 0;
+        }
+        for (int a = 0; a < grafo.numArcos; a++) {
+            distancias[grafo.origenes[a] * n + grafo.destinos[a]] = grafo.pesos[a];
+        }
+
+        int numBloques = (n + TAMANO_BLOQUE - 1) / TAMANO_BLOQUE;
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, numHilos));
+        try {
+            for (int k = 0; k < numBloques; k++) {
+                final int bk = k;
+
+                // Fase 1: bloque de la diagonal
+                actualizarBloque(distancias, n, bk, bk, bk);
+
+                // Fase 2: bloques de la fila y la columna k (dependen solo del bloque diagonal)
+                pool.submit(() -> IntStream.range(0, numBloques).parallel().forEach(b -> {
+                    if (b != bk) {
+                        actualizarBloque(distancias, n, bk, b, bk);
+                        actualizarBloque(distancias, n, b, bk, bk);
+                    }
+                })).join();
+
+                // Fase 3: bloques restantes (dependen de la fila y la columna k)
+                pool.submit(() -> IntStream.range(0, numBloques * numBloques).parallel().forEach(b -> {
+                    int bi = b / numBloques;
+                    int bj = b % numBloques;
+                    if (bi != bk && bj != bk) {
+                        actualizarBloque(distancias, n, bi, bj, bk);
+                    }
+                })).join();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        int umbral = INFINITO_SATURADO / 2;
+        for (int i = 0; i < distancias.length; i++) {
+            if (distancias[i] > umbral) {
+                distancias[i] = INFINITO;
+            }
+        }
+        return distancias;
+    }
+
+    // Indica si la matriz plana de n x n cabe en un arreglo; si cabe, i * n + j no desborda
+    static boolean cabeMatrizPlana(int n) {
+        return (long) n * n <= MAXIMO_MATRIZ_PLANA;
+    }
+
+    private static String errorMatrizPlana(int n) {
+        return "Floyd-Warshall por bloques admite hasta 46340 vértices y el grafo tiene " + n +
+               " (use --floyd=clasico, --algoritmo=johnson o --algoritmo=dijkstra)";
+    }
+
+    // Relaja el bloque (bi, bj) usando los vértices intermedios del bloque bk
+    private static void actualizarBloque(int[] distancias, int n, int bi, int bj, int bk) {
+        int finI = Math.min(n, (bi + 1) * TAMANO_BLOQUE);
+        int inicioJ = bj * TAMANO_BLOQUE;
+        int finJ = Math.min(n, inicioJ + TAMANO_BLOQUE);
+        int finK = Math.min(n, (bk + 1) * TAMANO_BLOQUE);
+
+        for (int k = bk * TAMANO_BLOQUE; k < finK; k++) {
+            int filaK = k * n;
+            for (int i = bi * TAMANO_BLOQUE; i < finI; i++) {
+                int filaI = i * n;
+                int distanciaIK = distancias[filaI + k];
+                for (int j = inicioJ; j < finJ; j++) {
+                    distancias[filaI + j] = Math.min(distancias[filaI + j], distanciaIK + distancias[filaK + j]);
                 }
             }
-            System.out.println();
         }
     }
+
+    // Método para convertir una matriz plana en orden de filas a int[][]
+    private static int[][] aFilas(int[] matrizPlana, int numVertices) {
+        int[][] matriz = new int[numVertices][];
+        for (int i = 0; i < numVertices; i++) {
+            matriz[i] = Arrays.copyOfRange(matrizPlana, i * numVertices, (i + 1) * numVertices);
+        }
+        return matriz;
+    }
+
+    // Método para crear la matriz de adyacencia a partir del grafo disperso
+    private static int[][] construirMatriz(GrafoCSR grafoDisperso) {
+        int numVertices = grafoDisperso.numVertices;
+        int[][] grafo = new int[numVertices][numVertices];
+        for (int i = 0; i < numVertices; i++) {
+            Arrays.fill(grafo[i], INFINITO);
+            grafo[i][i] = 0; // Distancia a sí mismo es 0
+        }
+        
+        for (int a = 0; a < grafoDisperso.numArcos; a++) {
+            grafo[grafoDisperso.origenes[a]][grafoDisperso.destinos[a]] = grafoDisperso.pesos[a];
+        }
+        
+        return grafo;
+    }
     
     // Método para comparar dos matrices
     private static boolean compararMatrices(int[][] matriz1, int[][] matriz2) {
@@ -238,16 +1263,57 @@ public class CaminosMinimos {
         return true;
     }
     
-    // Clase para representar una arista
-    static class Arista {
-        int origen;
-        int destino;
-        int peso;
-        
-        public Arista(int origen, int destino, int peso) {
-            this.origen = origen;
-            this.destino = destino;
-            this.peso = peso;
+    // Método auxiliar para saber si se pasó una opción sin valor (--nombre)
+    private static boolean tieneOpcion(String[] args, String nombre) {
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals(nombre)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Método auxiliar para leer opciones de la forma --nombre=valor
+    private static String obtenerOpcion(String[] args, String nombre, String valorPorDefecto) {
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].startsWith(nombre + "=")) {
+                return args[i].substring(nombre.length() + 1);
+            }
+        }
+        return valorPorDefecto;
+    }
+
+    // Resultado de Bellman-Ford desde un origen
+    static class ResultadoBellmanFord {
+        int[] distancias;
+        int[] predecesores;    // -1 si el vértice no tiene predecesor
+        int[] cicloNegativo;   // vértices de un ciclo negativo alcanzable, o null si no hay
+        long numRelajaciones;
+        long numArcosRevisados;
+
+        ResultadoBellmanFord(int numVertices, int origen) {
+            distancias = new int[numVertices];
+            predecesores = new int[numVertices];
+            Arrays.fill(distancias, INFINITO);
+            Arrays.fill(predecesores, -1);
+            distancias[origen] = 0;
+        }
+
+        boolean tieneCicloNegativo() {
+            return cicloNegativo != null;
+        }
+
+        String describirCiclo() {
+            StringBuilder sb = new StringBuilder();
+            for (int v : cicloNegativo) {
+                sb.append(v).append(" -> ");
+            }
+            return sb.append(cicloNegativo[0]).toString();
         }
     }
+
+    // Cálculo de la fila de distancias mínimas desde un vértice origen
+    interface CalculoFila {
+        int[] calcular(int origen);
+    }
 }
\ No newline at end of file
@@ -1,49 +1,81 @@
 import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class ComponentesConectados {
     
     public static void main(String[] args) {
         if (args.length < 1) {
-            System.out.println("Uso: java ComponentesConectados <archivo_entrada>");
+            System.out.println("Uso: java ComponentesConectados <archivo_entrada> [--modo=bfs|union-find|paralelo|servicio] [--hilos=N] [--metricas=json]");
             return;
         }
         
         String archivoEntrada = args[0];
-        List<List<Integer>> listaAdyacencia = new ArrayList<>();
+        String modo = obtenerOpcion(args, "--modo", "bfs");
+        int numHilos = Integer.parseInt(obtenerOpcion(args, "--hilos",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        boolean modoUnionFind = modo.equals("union-find") || modo.equals("servicio");
+        Metricas.activar(obtenerOpcion(args, "--metricas", null));
+        ListaAristas aristas = new ListaAristas();
+        IndiceConectividad indice = null;
         int numVertices = 0;
         
+        long inicioFase = Metricas.inicio();
         try {
-            // Leer el archivo de entrada
-            BufferedReader br = new BufferedReader(new FileReader(archivoEntrada));
-            String linea;
-            
-            // Primera línea contiene el número de vértices
-            linea = br.readLine();
-            if (linea != null) {
-                numVertices = Integer.parseInt(linea.trim());
-                
-                // Inicializar la lista de adyacencia
-                for (int i = 0; i < numVertices; i++) {
-                    listaAdyacencia.add(new ArrayList<>());
+            // Leer el archivo de entrada: binario si tiene el encabezado del formato, si no texto
+            if (ArchivoGrafoBinario.esBinario(archivoEntrada)) {
+                // Grafo en formato binario: el encabezado trae el número de vértices
+                aristas = ArchivoGrafoBinario.leer(archivoEntrada);
+                numVertices = aristas.numVertices;
+                if (modoUnionFind) {
+                    indice = new IndiceConectividad(numVertices);
+                    for (int i = 0; i < aristas.tamano(); i++) {
+                        indice.agregarArista(aristas.origenes[i], aristas.destinos[i]);
+                    }
                 }
-                
-                // Leer las aristas
-                while ((linea = br.readLine()) != null) {
-                    String[] partes = linea.trim().split("\\s+");
-                    if (partes.length == 2) {
-                        int u = Integer.parseInt(partes[0]);
-                        int v = Integer.parseInt(partes[1]);
-                        
-                        // Grafo no dirigido: agregar arista en ambas direcciones
-                        listaAdyacencia.get(u).add(v);
-                        listaAdyacencia.get(v).add(u);
+            } else {
+                try (LectorEnteros lector = new LectorEnteros(archivoEntrada)) {
+                    int[] valores = new int[2];
+                    
+                    // Primera línea contiene el número de vértices
+                    int cantidad = lector.leerLinea(valores);
+                    if (cantidad != -1) {
+                        if (cantidad < -1) {
+                            throw lector.errorDeLinea();
+                        }
+                        if (cantidad != 1) {
+                            throw new NumberFormatException("La primera línea debe contener el número de vértices");
+                        }
+                        numVertices = valores[0];
+                        if (numVertices < 0) {
+                            throw new NumberFormatException("Número de vértices negativo: " + numVertices);
+                        }
+                        if (modoUnionFind) {
+                            indice = new IndiceConectividad(numVertices);
+                            
+                            // Leer las aristas y unirlas directamente, sin guardarlas
+                            while ((cantidad = lector.leerLinea(valores)) != -1) {
+                                if (cantidad == 2) {
+                                    if (valores[0] < 0 || valores[1] < 0) {
+                                        throw new NumberFormatException("Vértice negativo: " + valores[0] + " " + valores[1]);
+                                    }
+                                    indice.agregarArista(valores[0], valores[1]);
+                                } else if (LectorEnteros.lineaInvalida(cantidad, 2)) {
+                                    throw lector.errorDeLinea();
+                                }
+                            }
+                        } else {
+                            // Leer las aristas por tramos en paralelo
+                            aristas = LectorEnteros.leerAristas(archivoEntrada, lector.posicion(), 2, numHilos);
+                        }
                     }
                 }
             }
-            br.close();
         } catch (IOException e) {
             System.err.println("Error al leer el archivo: " + e.getMessage());
             return;
@@ -54,43 +86,80 @@ public class ComponentesConectados {
         
         // Si no se especificó el número de vértices, calcularlo
         if (numVertices == 0) {
-            for (List<Integer> adyacentes : listaAdyacencia) {
-                for (int v : adyacentes) {
-                    numVertices = Math.max(numVertices, v + 1);
-                }
-            }
+            numVertices = modoUnionFind ? (indice == null ? 0 : indice.numVertices()) : aristas.numVertices;
+        }
+        if (modoUnionFind && indice == null) {
+            indice = new IndiceConectividad(numVertices);
         }
+        // En los modos con Union-Find la carga incluye unir las aristas
+        Metricas.fase("carga", inicioFase);
         
-        // Encontrar componentes conectados usando BFS
-        List<List<Integer>> componentes = encontrarComponentesConectados(listaAdyacencia, numVertices);
+        inicioFase = Metricas.inicio();
+        List<int[]> componentes;
+        switch (modo) {
+            case "bfs": {
+                // Grafo no dirigido: cada arista se agrega en ambas direcciones
+                GrafoCSR grafo = GrafoCSR.construirNoDirigido(numVertices, aristas);
+                Metricas.fase("construccion_grafo", inicioFase);
+                
+                // Encontrar componentes conectados usando BFS
+                inicioFase = Metricas.inicio();
+                componentes = encontrarComponentesConectados(grafo);
+                break;
+            }
+            case "union-find":
+                componentes = indice.instantanea();
+                indice.registrarMetricas();
+                break;
+            case "paralelo":
+                componentes = IndiceConectividad.agruparPorRaiz(raicesEnParalelo(aristas, numVertices, numHilos));
+                break;
+            case "servicio":
+                atenderConsultas(indice);
+                indice.registrarMetricas();
+                Metricas.emitir("ComponentesConectados");
+                return;
+            default:
+                System.err.println("Modo desconocido: " + modo);
+                return;
+        }
+        Metricas.fase("componentes", inicioFase);
+        Metricas.sumar("componentes.encontrados", componentes.size());
         
         // Imprimir los componentes conectados
+        inicioFase = Metricas.inicio();
         System.out.println("Componentes conectados:");
         imprimirComponentes(componentes);
+        Metricas.fase("impresion", inicioFase);
+        Metricas.emitir("ComponentesConectados");
     }
     
     /**
      * Encuentra los componentes conectados en un grafo no dirigido usando BFS.
      * 
-     * @param listaAdyacencia Lista de adyacencia que representa el grafo
-     * @param numVertices Número de vértices en el grafo
-     * @return Lista de componentes conectados, donde cada componente es una lista de vértices
+     * @param grafo Grafo no dirigido en formato CSR
+     * @return Lista de componentes conectados, donde cada componente es un arreglo ordenado de vértices
      */
-    private static List<List<Integer>> encontrarComponentesConectados(List<List<Integer>> listaAdyacencia, int numVertices) {
-        boolean[] visitado = new boolean[numVertices];
-        List<List<Integer>> componentes = new ArrayList<>();
+    static List<int[]> encontrarComponentesConectados(GrafoCSR grafo) {
+        int numVertices = grafo.numVertices;
+        RecorridoBFS recorrido = new RecorridoBFS(numVertices);
+        List<int[]> componentes = new ArrayList<>();
         
+        // Todos los recorridos comparten la misma época, así los visitados se conservan
+        recorrido.nuevaEpoca();
         for (int i = 0; i < numVertices; i++) {
-            if (!visitado[i]) {
+            if (!recorrido.visitado(i)) {
                 // Encontrar todos los vértices en el mismo componente que i
-                List<Integer> componente = new ArrayList<>();
-                bfs(listaAdyacencia, i, visitado, componente);
+                int[] componente = bfs(grafo, i, recorrido);
                 
                 // Ordenar los vértices del componente para facilitar la lectura
-                Collections.sort(componente);
+                Arrays.sort(componente);
                 componentes.add(componente);
             }
         }
+        // Cada vértice se visita y cada arco se recorre exactamente una vez
+        Metricas.sumar("bfs.recorridos", componentes.size());
+        Metricas.sumar("bfs.arcos_recorridos", grafo.numArcos);
         
         return componentes;
     }
@@ -98,30 +167,121 @@ public class ComponentesConectados {
     /**
      * Realiza un recorrido BFS desde un vértice origen y marca todos los vértices alcanzables.
      * 
-     * @param listaAdyacencia Lista de adyacencia que representa el grafo
+     * @param grafo Grafo no dirigido en formato CSR
      * @param origen Vértice desde donde comenzar el BFS
-     * @param visitado Arreglo que indica qué vértices han sido visitados
-     * @param componente Lista donde se almacenarán los vértices del componente
+     * @param recorrido Núcleo de BFS con la cola y las marcas de visitados de la época actual
+     * @return Vértices del componente, en el orden en que fueron descubiertos
      */
-    private static void bfs(List<List<Integer>> listaAdyacencia, int origen, boolean[] visitado, List<Integer> componente) {
-        Queue<Integer> cola = new LinkedList<>();
-        
-        // Marcar el origen como visitado y agregarlo a la cola
-        visitado[origen] = true;
-        cola.add(origen);
-        componente.add(origen);
-        
-        while (!cola.isEmpty()) {
-            int actual = cola.poll();
+    private static int[] bfs(GrafoCSR grafo, int origen, RecorridoBFS recorrido) {
+        int inicio = recorrido.recorrer(grafo, origen);
+        return Arrays.copyOfRange(recorrido.cola, inicio, recorrido.numVisitados);
+    }
+    
+    /**
+     * Calcula en paralelo la raíz de cada vértice con un Union-Find sin bloqueos: cada hilo
+     * procesa un tramo de la lista de aristas y enlaza raíces con compareAndSet, siempre de la
+     * raíz mayor a la menor, de modo que nunca se forman ciclos.
+     * 
+     * @param aristas Lista de aristas del grafo
+     * @param numVertices Número de vértices en el grafo
+     * @param numHilos Número de hilos
+     * @return Raíz del conjunto de cada vértice
+     */
+    private static int[] raicesEnParalelo(ListaAristas aristas, int numVertices, int numHilos) {
+        ConjuntosConcurrentes conjuntos = new ConjuntosConcurrentes(numVertices);
+        int numAristas = aristas.tamano();
+        int hilos = Math.max(1, Math.min(numHilos, numAristas));
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        try {
+            // Unir las aristas, un tramo contiguo por hilo
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int h = 0; h < hilos; h++) {
+                int inicio = (int) ((long) numAristas * h / hilos);
+                int fin = (int) ((long) numAristas * (h + 1) / hilos);
+                tareas.add(ejecutor.submit(() -> {
+                    for (int i = inicio; i < fin; i++) {
+                        conjuntos.union(aristas.origenes[i], aristas.destinos[i]);
+                    }
+                }));
+            }
+            esperar(tareas);
             
-            // Explorar todos los vértices adyacentes
-            for (int adyacente : listaAdyacencia.get(actual)) {
-                if (!visitado[adyacente]) {
-                    visitado[adyacente] = true;
-                    cola.add(adyacente);
-                    componente.add(adyacente);
+            // Calcular las raíces, un tramo de vértices por hilo
+            int[] raiz = new int[numVertices];
+            tareas.clear();
+            for (int h = 0; h < hilos; h++) {
+                int inicio = (int) ((long) numVertices * h / hilos);
+                int fin = (int) ((long) numVertices * (h + 1) / hilos);
+                tareas.add(ejecutor.submit(() -> {
+                    for (int v = inicio; v < fin; v++) {
+                        raiz[v] = conjuntos.find(v);
+                    }
+                }));
+            }
+            esperar(tareas);
+            return raiz;
+        } finally {
+            ejecutor.shutdown();
+        }
+    }
+    
+    private static void esperar(List<Future<?>> tareas) {
+        try {
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Cálculo de componentes interrumpido", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error en el cálculo de componentes", e.getCause());
+        }
+    }
+    
+    /**
+     * Atiende por la entrada estándar, línea por línea, consultas sobre un índice de
+     * conectividad que sigue recibiendo aristas:
+     *   agregar <u> <v>      agrega la arista u - v
+     *   conectados <u> <v>   responde "sí" o "no"
+     *   componentes          responde el número de componentes
+     *   listar               imprime los componentes en el mismo formato que el modo por lotes
+     * 
+     * @param indice Índice con las aristas del archivo de entrada ya cargadas
+     */
+    private static void atenderConsultas(IndiceConectividad indice) {
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(System.in))) {
+            String linea;
+            while ((linea = br.readLine()) != null) {
+                String[] partes = linea.trim().split("\\s+");
+                try {
+                    switch (partes[0]) {
+                        case "":
+                            break;
+                        case "agregar":
+                            indice.agregarArista(Integer.parseInt(partes[1]), Integer.parseInt(partes[2]));
+                            break;
+                        case "conectados":
+                            boolean conectados = indice.conectados(Integer.parseInt(partes[1]), Integer.parseInt(partes[2]));
+                            System.out.println(conectados ? "sí" : "no");
+                            break;
+                        case "componentes":
+                            System.out.println(indice.numComponentes());
+                            break;
+                        case "listar":
+                            System.out.println("Componentes conectados:");
+                            imprimirComponentes(indice.instantanea());
+                            break;
+                        default:
+                            System.err.println("Consulta no reconocida: " + linea);
+                            break;
+                    }
+                } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+                    // NumberFormatException también es IllegalArgumentException
+                    System.err.println("Consulta inválida: " + linea);
                 }
             }
+        } catch (IOException e) {
+            System.err.println("Error al leer la entrada: " + e.getMessage());
         }
     }
     
@@ -130,16 +290,16 @@ public class ComponentesConectados {
      * 
      * @param componentes Lista de componentes conectados
      */
-    private static void imprimirComponentes(List<List<Integer>> componentes) {
+    private static void imprimirComponentes(List<int[]> componentes) {
         StringBuilder sb = new StringBuilder("{");
         
         for (int i = 0; i < componentes.size(); i++) {
-            List<Integer> componente = componentes.get(i);
+            int[] componente = componentes.get(i);
             sb.append("{");
             
-            for (int j = 0; j < componente.size(); j++) {
-                sb.append(componente.get(j));
-                if (j < componente.size() - 1) {
+            for (int j = 0; j < componente.length; j++) {
+                sb.append(componente[j]);
+                if (j < componente.length - 1) {
                     sb.append(",");
                 }
             }
@@ -153,4 +313,14 @@ public class ComponentesConectados {
         sb.append("}");
         System.out.println(sb.toString());
     }
+    
+    // Método auxiliar para leer opciones de la forma --nombre=valor
+    private static String obtenerOpcion(String[] args, String nombre, String valorPorDefecto) {
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].startsWith(nombre + "=")) {
+                return args[i].substring(nombre.length() + 1);
+            }
+        }
+        return valorPorDefecto;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Union-Find concurrente sin bloqueos sobre un AtomicIntegerArray. La raíz mayor siempre se
+ * enlaza a la menor, por lo que el orden de las uniones entre hilos no puede formar ciclos.
+ */
+public class ConjuntosConcurrentes {
+    AtomicIntegerArray padre;
+
+    public ConjuntosConcurrentes(int n) {
+        padre = new AtomicIntegerArray(n);
+        for (int i = 0; i < n; i++) {
+            padre.set(i, i);
+        }
+    }
+
+    /**
+     * Encuentra la raíz de x con compresión de camino por división a la mitad.
+     */
+    public int find(int x) {
+        while (true) {
+            int p = padre.get(x);
+            if (p == x) {
+                return x;
+            }
+            int abuelo = padre.get(p);
+            if (abuelo != p) {
+                padre.compareAndSet(x, p, abuelo);
+            }
+            x = abuelo;
+        }
+    }
+
+    /**
+     * Une los conjuntos que contienen x e y; reintenta si otro hilo cambió una raíz.
+     *
+     * @return true si x e y estaban en conjuntos distintos y este hilo hizo la unión
+     */
+    public boolean union(int x, int y) {
+        while (true) {
+            int raizX = find(x);
+            int raizY = find(y);
+            if (raizX == raizY) {
+                return false;
+            }
+            int mayor = Math.max(raizX, raizY);
+            int menor = Math.min(raizX, raizY);
+            if (padre.compareAndSet(mayor, mayor, menor)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+import java.util.Arrays;
+
+/**
+ * Estructura de conjuntos disjuntos (Union-Find) sobre arreglos primitivos, con unión por
+ * rango y compresión de camino por división a la mitad (iterativa, sin recursión).
+ * Los arreglos crecen bajo demanda cuando se une un elemento mayor que la capacidad actual.
+ */
+public class ConjuntosDisjuntos {
+    int[] padre;
+    byte[] rango;
+    int numElementos;  // Mayor elemento visto + 1
+    int numConjuntos;
+
+    public ConjuntosDisjuntos(int numElementos) {
+        int capacidad = Math.max(1, numElementos);
+        padre = new int[capacidad];
+        rango = new byte[capacidad];
+        for (int i = 0; i < capacidad; i++) {
+            padre[i] = i;
+        }
+        this.numElementos = numElementos;
+        this.numConjuntos = numElementos;
+    }
+
+    /**
+     * Asegura que los elementos 0 .. elemento existan, cada uno nuevo en su propio conjunto.
+     */
+    public void asegurarElemento(int elemento) {
+        if (elemento >= padre.length) {
+            int capacidadAnterior = padre.length;
+            int nuevaCapacidad = Math.max(elemento + 1, capacidadAnterior * 2);
+            padre = Arrays.copyOf(padre, nuevaCapacidad);
+            rango = Arrays.copyOf(rango, nuevaCapacidad);
+            for (int i = capacidadAnterior; i < nuevaCapacidad; i++) {
+                padre[i] = i;
+            }
+        }
+        if (elemento >= numElementos) {
+            numConjuntos += elemento + 1 - numElementos;
+            numElementos = elemento + 1;
+        }
+    }
+
+    /**
+     * Encuentra el representante (raíz) del conjunto al que pertenece x.
+     */
+    public int find(int x) {
+        while (padre[x] != x) {
+            padre[x] = padre[padre[x]]; // Compresión de camino por división a la mitad
+            x = padre[x];
+        }
+        return x;
+    }
+
+    /**
+     * Saltos desde x hasta la raíz de su conjunto, sin comprimir el camino. Solo para las
+     * métricas: quien las mide lo llama antes de find, y solo si están activas.
+     */
+    public int profundidad(int x) {
+        if (x >= padre.length) {
+            return 0;
+        }
+        int saltos = 0;
+        while (padre[x] != x) {
+            x = padre[x];
+            saltos++;
+        }
+        return saltos;
+    }
+
+    /**
+     * Une los conjuntos que contienen x e y, agregando los elementos si aún no existen.
+     *
+     * @return true si x e y estaban en conjuntos distintos
+     */
+    public boolean union(int x, int y) {
+        asegurarElemento(Math.max(x, y));
+        int raizX = find(x);
+        int raizY = find(y);
+
+        if (raizX == raizY) return false;
+
+        // Unión por rango
+        if (rango[raizX] < rango[raizY]) {
+            padre[raizX] = raizY;
+        } else if (rango[raizX] > rango[raizY]) {
+            padre[raizY] = raizX;
+        } else {
+            padre[raizY] = raizX;
+            rango[raizX]++;
+        }
+        numConjuntos--;
+        return true;
+    }
+
+    public boolean conectados(int x, int y) {
+        if (x >= numElementos || y >= numElementos) {
+            return x == y;
+        }
+        return find(x) == find(y);
+    }
+}
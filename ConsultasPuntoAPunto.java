@@ -0,0 +1,333 @@
+import java.util.Arrays;
+
+/**
+ * Consultas de distancia mínima entre un origen y un destino sin calcular la fila completa
+ * de Dijkstra. Ofrece dos búsquedas sobre un grafo disperso con pesos no negativos:
+ * - Dijkstra bidireccional: una búsqueda hacia adelante desde el origen y otra hacia atrás
+ *   desde el destino (por el índice inverso), expandiendo siempre la de menos vértices en su
+ *   montículo. Se detiene cuando la suma de las dos claves mínimas no puede mejorar el mejor
+ *   camino encontrado.
+ * - ALT (A* con marcas y desigualdad triangular): se precalculan las distancias desde y hacia
+ *   unas pocas marcas, y la cota max(d(L, t) - d(L, v), d(v, L) - d(t, L)) guía una búsqueda
+ *   A* que termina al extraer el destino. La cota es consistente, por lo que cada vértice se
+ *   asienta a lo sumo una vez.
+ * Si el grafo original tiene pesos negativos, se consulta el grafo reponderado con los
+ * potenciales de Johnson y la distancia se corrige al final.
+ *
+ * La memoria de trabajo es de la instancia: cada hilo debe usar su propia instancia (las
+ * distancias de las marcas se pueden compartir con conMemoriaPropia).
+ */
+public class ConsultasPuntoAPunto {
+    static final int INFINITO = Integer.MAX_VALUE;
+    private static final long SIN_DISTANCIA = Long.MAX_VALUE;
+
+    final GrafoCSR grafo;     // Pesos no negativos, con índice inverso
+    final int[] potencial;    // Potenciales de Johnson, o null si los pesos originales ya eran no negativos
+    int[] marcas = new int[0];
+    int[][] desdeMarca = new int[0][];  // desdeMarca[i][v] = d(marcas[i], v)
+    int[][] haciaMarca = new int[0][];  // haciaMarca[i][v] = d(v, marcas[i])
+
+    // Vértices distintos asentados por la última consulta (en la bidireccional, uno asentado
+    // en las dos direcciones cuenta una vez)
+    long verticesAsentados;
+
+    // Memoria de trabajo: una distancia solo es válida si su época es la de la consulta actual
+    private final long[] distanciaAdelante;
+    private final long[] distanciaAtras;
+    private final int[] epocaAdelante;
+    private final int[] epocaAtras;
+    private int epoca;
+    private final MonticuloIndexado monticuloAdelante;
+    private final MonticuloIndexado monticuloAtras;
+
+    /**
+     * @param grafo Grafo disperso con pesos no negativos
+     * @param potencial Potenciales con los que se reponderó el grafo, o null si no se reponderó
+     */
+    public ConsultasPuntoAPunto(GrafoCSR grafo, int[] potencial) {
+        for (int a = 0; a < grafo.numArcos; a++) {
+            if (grafo.pesos[a] < 0) {
+                throw new IllegalArgumentException("Peso negativo en el arco " + grafo.origenes[a] + " -> " + grafo.destinos[a]);
+            }
+        }
+        grafo.construirIndiceInverso();
+        this.grafo = grafo;
+        this.potencial = potencial;
+        int n = grafo.numVertices;
+        distanciaAdelante = new long[n];
+        distanciaAtras = new long[n];
+        epocaAdelante = new int[n];
+        epocaAtras = new int[n];
+        monticuloAdelante = new MonticuloIndexado(n);
+        monticuloAtras = new MonticuloIndexado(n);
+    }
+
+    /**
+     * Devuelve otra instancia sobre el mismo grafo y las mismas marcas, con su propia memoria
+     * de trabajo, para consultar desde otro hilo.
+     */
+    public ConsultasPuntoAPunto conMemoriaPropia() {
+        ConsultasPuntoAPunto copia = new ConsultasPuntoAPunto(grafo, potencial);
+        copia.marcas = marcas;
+        copia.desdeMarca = desdeMarca;
+        copia.haciaMarca = haciaMarca;
+        return copia;
+    }
+
+    /**
+     * Elige las marcas para ALT y precalcula sus distancias. La primera marca es el vértice
+     * más lejano al vértice 0; cada una de las siguientes es el vértice que maximiza la menor
+     * distancia de ida y vuelta a las marcas ya elegidas (los vértices inalcanzables cuentan
+     * como los más lejanos, así cada componente recibe su marca).
+     *
+     * @param numMarcas Cantidad de marcas (se limita al número de vértices)
+     */
+    public void prepararMarcas(int numMarcas) {
+        int n = grafo.numVertices;
+        int k = Math.min(numMarcas, n);
+        marcas = new int[k];
+        desdeMarca = new int[k][];
+        haciaMarca = new int[k][];
+        if (k == 0) {
+            return;
+        }
+
+        long[] cercania = new long[n];
+        Arrays.fill(cercania, SIN_DISTANCIA);
+        int[] desdeCero = dijkstraCompleto(0, false);
+        int siguiente = masLejano(desdeCero);
+        for (int i = 0; i < k; i++) {
+            marcas[i] = siguiente;
+            desdeMarca[i] = dijkstraCompleto(siguiente, false);
+            haciaMarca[i] = dijkstraCompleto(siguiente, true);
+
+            siguiente = -1;
+            for (int v = 0; v < n; v++) {
+                long idaYVuelta = desdeMarca[i][v] == INFINITO || haciaMarca[i][v] == INFINITO
+                        ? SIN_DISTANCIA : (long) desdeMarca[i][v] + haciaMarca[i][v];
+                cercania[v] = Math.min(cercania[v], idaYVuelta);
+                if (cercania[v] != 0 && (siguiente < 0 || cercania[v] > cercania[siguiente])) {
+                    siguiente = v;
+                }
+            }
+            if (siguiente < 0) {
+                // Todos los vértices ya son marcas (o están a distancia 0 de una)
+                marcas = Arrays.copyOf(marcas, i + 1);
+                desdeMarca = Arrays.copyOf(desdeMarca, i + 1);
+                haciaMarca = Arrays.copyOf(haciaMarca, i + 1);
+                return;
+            }
+        }
+    }
+
+    private static int masLejano(int[] distancias) {
+        int mejor = 0;
+        for (int v = 1; v < distancias.length; v++) {
+            if (distancias[v] > distancias[mejor]) {
+                mejor = v;
+            }
+        }
+        return mejor;
+    }
+
+    /**
+     * Distancia mínima de origen a destino con Dijkstra bidireccional.
+     *
+     * @return Distancia en el grafo original, o INFINITO si no hay camino
+     */
+    public int distanciaBidireccional(int origen, int destino) {
+        validarVertices(origen, destino);
+        verticesAsentados = 0;
+        if (origen == destino) {
+            return 0;
+        }
+        nuevaEpoca();
+        MonticuloIndexado adelante = monticuloAdelante;
+        MonticuloIndexado atras = monticuloAtras;
+        adelante.limpiar();
+        atras.limpiar();
+        fijar(distanciaAdelante, epocaAdelante, origen, 0);
+        fijar(distanciaAtras, epocaAtras, destino, 0);
+        adelante.insertarODisminuir(origen, 0);
+        atras.insertarODisminuir(destino, 0);
+
+        int[] desplazamientos = grafo.desplazamientos;
+        int[] destinos = grafo.destinos;
+        int[] origenes = grafo.origenes;
+        int[] pesos = grafo.pesos;
+        int[] desplazamientosEntrada = grafo.desplazamientosEntrada;
+        int[] arcosEntrada = grafo.arcosEntrada;
+
+        long mejor = SIN_DISTANCIA;
+        while (!adelante.estaVacio() && !atras.estaVacio()) {
+            if (adelante.minimaClave() + atras.minimaClave() >= mejor) {
+                break;
+            }
+            if (adelante.tamano <= atras.tamano) {
+                int u = adelante.extraerMinimo();
+                if (!atras.fueExtraido(u)) {
+                    verticesAsentados++;
+                }
+                long distanciaU = distanciaAdelante[u];
+                for (int a = desplazamientos[u]; a < desplazamientos[u + 1]; a++) {
+                    int v = destinos[a];
+                    long nueva = distanciaU + pesos[a];
+                    if (epocaAdelante[v] != epoca || nueva < distanciaAdelante[v]) {
+                        fijar(distanciaAdelante, epocaAdelante, v, nueva);
+                        adelante.insertarODisminuir(v, nueva);
+                    }
+                    if (epocaAtras[v] == epoca && nueva + distanciaAtras[v] < mejor) {
+                        mejor = nueva + distanciaAtras[v];
+                    }
+                }
+            } else {
+                int u = atras.extraerMinimo();
+                if (!adelante.fueExtraido(u)) {
+                    verticesAsentados++;
+                }
+                long distanciaU = distanciaAtras[u];
+                for (int i = desplazamientosEntrada[u]; i < desplazamientosEntrada[u + 1]; i++) {
+                    int a = arcosEntrada[i];
+                    int v = origenes[a];
+                    long nueva = distanciaU + pesos[a];
+                    if (epocaAtras[v] != epoca || nueva < distanciaAtras[v]) {
+                        fijar(distanciaAtras, epocaAtras, v, nueva);
+                        atras.insertarODisminuir(v, nueva);
+                    }
+                    if (epocaAdelante[v] == epoca && nueva + distanciaAdelante[v] < mejor) {
+                        mejor = nueva + distanciaAdelante[v];
+                    }
+                }
+            }
+        }
+        return aDistanciaOriginal(mejor, origen, destino);
+    }
+
+    /**
+     * Distancia mínima de origen a destino con A* guiado por las marcas (prepararMarcas debe
+     * haberse llamado antes; sin marcas equivale a Dijkstra con parada temprana).
+     *
+     * @return Distancia en el grafo original, o INFINITO si no hay camino
+     */
+    public int distanciaALT(int origen, int destino) {
+        validarVertices(origen, destino);
+        verticesAsentados = 0;
+        long cotaOrigen = cota(origen, destino);
+        if (cotaOrigen < 0) {
+            return INFINITO;
+        }
+        nuevaEpoca();
+        MonticuloIndexado monticulo = monticuloAdelante;
+        monticulo.limpiar();
+        fijar(distanciaAdelante, epocaAdelante, origen, 0);
+        monticulo.insertarODisminuir(origen, cotaOrigen);
+
+        int[] desplazamientos = grafo.desplazamientos;
+        int[] destinos = grafo.destinos;
+        int[] pesos = grafo.pesos;
+        while (!monticulo.estaVacio()) {
+            int u = monticulo.extraerMinimo();
+            verticesAsentados++;
+            long distanciaU = distanciaAdelante[u];
+            if (u == destino) {
+                return aDistanciaOriginal(distanciaU, origen, destino);
+            }
+            for (int a = desplazamientos[u]; a < desplazamientos[u + 1]; a++) {
+                int v = destinos[a];
+                long nueva = distanciaU + pesos[a];
+                if (epocaAdelante[v] != epoca || nueva < distanciaAdelante[v]) {
+                    long cotaV = cota(v, destino);
+                    if (cotaV < 0) {
+                        continue;
+                    }
+                    fijar(distanciaAdelante, epocaAdelante, v, nueva);
+                    monticulo.insertarODisminuir(v, nueva + cotaV);
+                }
+            }
+        }
+        return INFINITO;
+    }
+
+    /**
+     * Cota inferior de d(v, destino) con la desigualdad triangular sobre cada marca L:
+     * d(v, t) >= d(L, t) - d(L, v) y d(v, t) >= d(v, L) - d(t, L).
+     *
+     * @return La cota, o -1 si las marcas demuestran que el destino no es alcanzable desde v
+     */
+    private long cota(int v, int destino) {
+        long mejor = 0;
+        for (int i = 0; i < marcas.length; i++) {
+            int[] desde = desdeMarca[i];
+            int[] hacia = haciaMarca[i];
+            if (desde[v] != INFINITO) {
+                if (desde[destino] == INFINITO) {
+                    return -1;  // L llega a v pero no al destino
+                }
+                mejor = Math.max(mejor, (long) desde[destino] - desde[v]);
+            }
+            if (hacia[destino] != INFINITO) {
+                if (hacia[v] == INFINITO) {
+                    return -1;  // El destino llega a L pero v no
+                }
+                mejor = Math.max(mejor, (long) hacia[v] - hacia[destino]);
+            }
+        }
+        return mejor;
+    }
+
+    // Dijkstra completo desde (o, con haciaAtras, hacia) un vértice, para las marcas
+    private int[] dijkstraCompleto(int inicio, boolean haciaAtras) {
+        int[] distancias = new int[grafo.numVertices];
+        Arrays.fill(distancias, INFINITO);
+        distancias[inicio] = 0;
+        MonticuloIndexado monticulo = monticuloAdelante;
+        monticulo.limpiar();
+        monticulo.insertarODisminuir(inicio, 0);
+        while (!monticulo.estaVacio()) {
+            int u = monticulo.extraerMinimo();
+            int distanciaU = distancias[u];
+            int desde = haciaAtras ? grafo.desplazamientosEntrada[u] : grafo.desplazamientos[u];
+            int hasta = haciaAtras ? grafo.desplazamientosEntrada[u + 1] : grafo.desplazamientos[u + 1];
+            for (int i = desde; i < hasta; i++) {
+                int a = haciaAtras ? grafo.arcosEntrada[i] : i;
+                int v = haciaAtras ? grafo.origenes[a] : grafo.destinos[a];
+                int nueva = distanciaU + grafo.pesos[a];
+                if (nueva < distancias[v]) {
+                    distancias[v] = nueva;
+                    monticulo.insertarODisminuir(v, nueva);
+                }
+            }
+        }
+        return distancias;
+    }
+
+    private int aDistanciaOriginal(long distancia, int origen, int destino) {
+        if (distancia == SIN_DISTANCIA) {
+            return INFINITO;
+        }
+        if (potencial != null) {
+            distancia = distancia - potencial[origen] + potencial[destino];
+        }
+        return (int) distancia;
+    }
+
+    private void fijar(long[] distancias, int[] epocas, int v, long distancia) {
+        distancias[v] = distancia;
+        epocas[v] = epoca;
+    }
+
+    private void nuevaEpoca() {
+        if (++epoca == Integer.MAX_VALUE) {
+            Arrays.fill(epocaAdelante, 0);
+            Arrays.fill(epocaAtras, 0);
+            epoca = 1;
+        }
+    }
+
+    private void validarVertices(int origen, int destino) {
+        int n = grafo.numVertices;
+        if (origen < 0 || origen >= n || destino < 0 || destino >= n) {
+            throw new IllegalArgumentException("Vértice fuera de rango: " + origen + " -> " + destino);
+        }
+    }
+}
@@ -10,45 +10,47 @@ public class DistribucionLibros {
     
     public static void main(String[] args) {
         if (args.length < 1) {
-            System.out.println("Uso: java DistribucionLibros <archivo_entrada>");
+            System.out.println("Uso: java DistribucionLibros <archivo_entrada> [--flujo=dinic|push-relabel|edmonds-karp|costo-minimo] [--cambios=archivo_cambios] [--detalle] [--metricas=json]");
             return;
         }
         
         String archivoEntrada = args[0];
+        String algoritmoFlujo = obtenerOpcion(args, "--flujo", "dinic");
+        String archivoCambios = obtenerOpcion(args, "--cambios", null);
+        boolean detalle = tieneOpcion(args, "--detalle");
+        Metricas.activar(obtenerOpcion(args, "--metricas", null));
         
-        try {
+        long inicioFase = Metricas.inicio();
+        try (LectorEnteros lector = new LectorEnteros(archivoEntrada)) {
             // Leer el archivo de entrada
-            BufferedReader br = new BufferedReader(new FileReader(archivoEntrada));
+            int[] valores = new int[5];
             
             // Leer número de fábricas, librerías, bodegas y camiones
-            String[] partes = br.readLine().trim().split("\\s+");
-            int numFabricas = Integer.parseInt(partes[0]);
-            int numLibrerias = Integer.parseInt(partes[1]);
-            int numBodegas = Integer.parseInt(partes[2]);
-            int numCamiones = Integer.parseInt(partes[3]);
+            lector.leerLineaCompleta(valores, 4);
+            int numFabricas = valores[0];
+            int numLibrerias = valores[1];
+            int numBodegas = valores[2];
+            int numCamiones = valores[3];
             
             // Leer capacidades de las bodegas
             int[] capacidadesBodegas = new int[numBodegas];
-            partes = br.readLine().trim().split("\\s+");
-            for (int i = 0; i < numBodegas; i++) {
-                capacidadesBodegas[i] = Integer.parseInt(partes[i]);
-            }
+            lector.leerLineaCompleta(capacidadesBodegas, numBodegas);
             
             // Leer capacidades de los camiones
             int[] capacidadesCamiones = new int[numCamiones];
-            partes = br.readLine().trim().split("\\s+");
-            for (int i = 0; i < numCamiones; i++) {
-                capacidadesCamiones[i] = Integer.parseInt(partes[i]);
-            }
+            lector.leerLineaCompleta(capacidadesCamiones, numCamiones);
             
-            // Leer rutas de los camiones
+            // Leer rutas de los camiones; la quinta columna, opcional, es el costo por libro
             int[][] rutas = new int[numCamiones][2];
+            int[] costosCamiones = new int[numCamiones];
             for (int i = 0; i < numCamiones; i++) {
-                partes = br.readLine().trim().split("\\s+");
-                int origen = Integer.parseInt(partes[0]);
-                int destino = Integer.parseInt(partes[1]);
-                int tipoOrigen = Integer.parseInt(partes[2]);  // 0: fábrica, 1: bodega
-                int tipoDestino = Integer.parseInt(partes[3]); // 0: librería, 1: bodega
+                if (lector.leerLineaCompleta(valores, 4) >= 5) {
+                    costosCamiones[i] = valores[4];
+                }
+                int origen = valores[0];
+                int destino = valores[1];
+                int tipoOrigen = valores[2];  // 0: fábrica, 1: bodega
+                int tipoDestino = valores[3]; // 0: librería, 1: bodega
                 
                 // Convertir a índices internos
                 if (tipoOrigen == 1) {  // Si es bodega
@@ -63,63 +65,83 @@ public class DistribucionLibros {
                 rutas[i][1] = destino;
             }
             
-            br.close();
-            
-            // Construir el grafo de flujo
-            int numNodos = 2 + numFabricas + numLibrerias + 2 * numBodegas + numCamiones;
-            int[][] capacidad = new int[numNodos][numNodos];
+            Metricas.fase("carga", inicioFase);
             
-            // Índices de los nodos
+            // Construir la red residual dispersa y calcular el flujo máximo
+            inicioFase = Metricas.inicio();
             int idxFuente = 0;
             int idxSumidero = 1;
-            int idxFabricas = 2;
-            int idxLibrerias = idxFabricas + numFabricas;
-            int idxBodegasEntrada = idxLibrerias + numLibrerias;
-            int idxBodegasSalida = idxBodegasEntrada + numBodegas;
-            int idxCamiones = idxBodegasSalida + numBodegas;
-            
-            // Conectar fuente a fábricas
-            for (int i = 0; i < numFabricas; i++) {
-                capacidad[idxFuente][idxFabricas + i] = INFINITO;
+            GrafoCSR red = construirRed(numFabricas, numLibrerias, capacidadesBodegas, capacidadesCamiones, rutas);
+            int[] capacidadResidual = Arrays.copyOf(red.pesos, red.numArcos);
+            Metricas.fase("construccion_red", inicioFase);
+            inicioFase = Metricas.inicio();
+            int idxPrimerCamion = numFabricas + numLibrerias + numBodegas;
+            int flujoMaximo;
+            long costoMinimo = 0;
+            switch (algoritmoFlujo) {
+                case "costo-minimo": {
+                    // El costo por libro de cada camión va en su arco de entrada y, negado, en el inverso
+                    int[] costoArco = new int[red.numArcos];
+                    for (int i = 0; i < numCamiones; i++) {
+                        int arco = red.arcoDeArista[idxPrimerCamion + 2 * i];
+                        costoArco[arco] = costosCamiones[i];
+                        costoArco[red.pareja[arco]] = -costosCamiones[i];
+                    }
+                    FlujoConCosto resultado = flujoCostoMinimo(red, capacidadResidual, costoArco, idxFuente, idxSumidero);
+                    if (resultado == null) {
+                        System.err.println("Los costos forman un ciclo negativo entre bodegas");
+                        return;
+                    }
+                    flujoMaximo = resultado.flujo;
+                    costoMinimo = resultado.costo;
+                    break;
+                }
+                case "edmonds-karp":
+                    flujoMaximo = fordFulkerson(red, capacidadResidual, idxFuente, idxSumidero);
+                    break;
+                case "push-relabel":
+                    flujoMaximo = pushRelabel(red, capacidadResidual, idxFuente, idxSumidero);
+                    break;
+                case "dinic":
+                    flujoMaximo = dinic(red, capacidadResidual, idxFuente, idxSumidero);
+                    break;
+                default:
+                    System.err.println("Algoritmo de flujo desconocido: " + algoritmoFlujo);
+                    return;
             }
+            Metricas.fase("flujo", inicioFase);
             
-            // Conectar librerías a sumidero
-            for (int i = 0; i < numLibrerias; i++) {
-                capacidad[idxLibrerias + i][idxSumidero] = INFINITO;
+            // Imprimir resultado
+            System.out.println("La cantidad máxima de libros que se pueden transportar en un día es: " + flujoMaximo);
+            if (algoritmoFlujo.equals("costo-minimo")) {
+                System.out.println("El costo mínimo de transportarlos es: " + costoMinimo);
             }
             
-            // Conectar entradas y salidas de bodegas
-            for (int i = 0; i < numBodegas; i++) {
-                capacidad[idxBodegasEntrada + i][idxBodegasSalida + i] = capacidadesBodegas[i];
+            // Las aristas de las bodegas y de los camiones se agregaron en este orden
+            int primeraBodega = numFabricas + numLibrerias;
+            int primerCamion = idxPrimerCamion;
+            if (detalle) {
+                inicioFase = Metricas.inicio();
+                imprimirDetalle(construirResultado(red, red.pesos, capacidadResidual, idxFuente, flujoMaximo,
+                        primeraBodega, numBodegas, primerCamion, numCamiones));
+                Metricas.fase("detalle", inicioFase);
             }
             
-            // Conectar camiones según sus rutas
-            for (int i = 0; i < numCamiones; i++) {
-                int origen = rutas[i][0];
-                int destino = rutas[i][1];
-                int idxCamion = idxCamiones + i;
-                
-                // Determinar el tipo de origen y destino
-                if (origen < numFabricas) {  // Origen es una fábrica
-                    capacidad[idxFabricas + origen][idxCamion] = capacidadesCamiones[i];
-                } else {  // Origen es una bodega
-                    origen -= numFabricas;
-                    capacidad[idxBodegasSalida + origen][idxCamion] = capacidadesCamiones[i];
-                }
-                
-                if (destino < numLibrerias) {  // Destino es una librería
-                    capacidad[idxCamion][idxLibrerias + destino] = capacidadesCamiones[i];
-                } else {  // Destino es una bodega
-                    destino -= numLibrerias;
-                    capacidad[idxCamion][idxBodegasEntrada + destino] = capacidadesCamiones[i];
+            if (archivoCambios != null && algoritmoFlujo.equals("costo-minimo")) {
+                // La reparación incremental conserva el flujo máximo pero no el costo mínimo
+                System.err.println("--cambios no está disponible con --flujo=costo-minimo");
+            } else if (archivoCambios != null) {
+                inicioFase = Metricas.inicio();
+                FlujoIncremental incremental = new FlujoIncremental(red, capacidadResidual, idxFuente, idxSumidero, flujoMaximo);
+                aplicarCambios(incremental, archivoCambios, primeraBodega, numBodegas, primerCamion, numCamiones);
+                Metricas.fase("cambios", inicioFase);
+                if (detalle) {
+                    System.out.println("Resultado final:");
+                    imprimirDetalle(construirResultado(red, incremental.capacidad, incremental.capacidadResidual, idxFuente,
+                            incremental.flujoMaximo, primeraBodega, numBodegas, primerCamion, numCamiones));
                 }
             }
-            
-            // Calcular el flujo máximo
-            int flujoMaximo = fordFulkerson(capacidad, idxFuente, idxSumidero);
-            
-            // Imprimir resultado
-            System.out.println("La cantidad máxima de libros que se pueden transportar en un día es: " + flujoMaximo);
+            Metricas.emitir("DistribucionLibros");
             
         } catch (IOException e) {
             System.err.println("Error al leer el archivo: " + e.getMessage());
@@ -129,81 +151,770 @@ public class DistribucionLibros {
     }
     
     /**
-     * Implementación del algoritmo de Ford-Fulkerson para encontrar el flujo máximo.
+     * Construye la red de flujo: fuente -> fábricas -> camiones -> bodegas -> camiones ->
+     * librerías -> sumidero. Cada bodega se divide en un nodo de entrada y uno de salida unidos
+     * por su capacidad. Las aristas se agregan en este orden: fuente a fábricas, librerías a
+     * sumidero, bodegas y dos por camión (entrada y salida).
+     * 
+     * @param numFabricas Número de fábricas
+     * @param numLibrerias Número de librerías
+     * @param capacidadesBodegas Capacidad de cada bodega
+     * @param capacidadesCamiones Capacidad de cada camión
+     * @param rutas Origen y destino de cada camión en índices internos (las bodegas van después
+     *              de las fábricas en el origen y después de las librerías en el destino)
+     * @return Red residual en formato CSR, con la fuente en el nodo 0 y el sumidero en el 1
+     */
+    static GrafoCSR construirRed(int numFabricas, int numLibrerias, int[] capacidadesBodegas,
+                                 int[] capacidadesCamiones, int[][] rutas) {
+        int numBodegas = capacidadesBodegas.length;
+        int numCamiones = capacidadesCamiones.length;
+        int numNodos = 2 + numFabricas + numLibrerias + 2 * numBodegas + numCamiones;
+        ListaAristas arcos = new ListaAristas(numFabricas + numLibrerias + numBodegas + 2 * numCamiones);
+        
+        // Índices de los nodos
+        int idxFuente = 0;
+        int idxSumidero = 1;
+        int idxFabricas = 2;
+        int idxLibrerias = idxFabricas + numFabricas;
+        int idxBodegasEntrada = idxLibrerias + numLibrerias;
+        int idxBodegasSalida = idxBodegasEntrada + numBodegas;
+        int idxCamiones = idxBodegasSalida + numBodegas;
+        
+        // Conectar fuente a fábricas
+        for (int i = 0; i < numFabricas; i++) {
+            arcos.agregar(idxFuente, idxFabricas + i, INFINITO);
+        }
+        
+        // Conectar librerías a sumidero
+        for (int i = 0; i < numLibrerias; i++) {
+            arcos.agregar(idxLibrerias + i, idxSumidero, INFINITO);
+        }
+        
+        // Conectar entradas y salidas de bodegas
+        for (int i = 0; i < numBodegas; i++) {
+            arcos.agregar(idxBodegasEntrada + i, idxBodegasSalida + i, capacidadesBodegas[i]);
+        }
+        
+        // Conectar camiones según sus rutas
+        for (int i = 0; i < numCamiones; i++) {
+            int origen = rutas[i][0];
+            int destino = rutas[i][1];
+            int idxCamion = idxCamiones + i;
+            
+            // Determinar el tipo de origen y destino
+            if (origen < numFabricas) {  // Origen es una fábrica
+                arcos.agregar(idxFabricas + origen, idxCamion, capacidadesCamiones[i]);
+            } else {  // Origen es una bodega
+                origen -= numFabricas;
+                arcos.agregar(idxBodegasSalida + origen, idxCamion, capacidadesCamiones[i]);
+            }
+            
+            if (destino < numLibrerias) {  // Destino es una librería
+                arcos.agregar(idxCamion, idxLibrerias + destino, capacidadesCamiones[i]);
+            } else {  // Destino es una bodega
+                destino -= numLibrerias;
+                arcos.agregar(idxCamion, idxBodegasEntrada + destino, capacidadesCamiones[i]);
+            }
+        }
+        
+        return GrafoCSR.construirResidual(numNodos, arcos);
+    }
+    
+    /**
+     * Extrae del flujo máximo la carga de cada camión y de cada bodega y el corte mínimo, en
+     * O(V + E) y directamente de la red residual dispersa: el flujo de un arco es su capacidad
+     * menos su capacidad residual, y el lado de la fuente del corte son los nodos alcanzables
+     * desde la fuente por arcos con capacidad residual.
      * 
-     * @param capacidad Matriz de capacidades del grafo
+     * @param red Red residual en formato CSR
+     * @param capacidad Capacidad de cada arco
+     * @param capacidadResidual Capacidad residual de cada arco tras el flujo máximo
      * @param fuente Nodo fuente
-     * @param sumidero Nodo sumidero
-     * @return Flujo máximo desde la fuente hasta el sumidero
+     * @param flujoMaximo Valor del flujo máximo
+     * @param primeraBodega Índice en la lista de aristas de la arista de la primera bodega
+     * @param numBodegas Número de bodegas
+     * @param primerCamion Índice en la lista de aristas de la primera arista de camión
+     * @param numCamiones Número de camiones
+     * @return Resultado con el flujo por camión y bodega y el corte mínimo
      */
-    private static int fordFulkerson(int[][] capacidad, int fuente, int sumidero) {
-        int numNodos = capacidad.length;
-        int[][] flujo = new int[numNodos][numNodos];
-        int flujoMaximo = 0;
+    private static ResultadoFlujo construirResultado(GrafoCSR red, int[] capacidad, int[] capacidadResidual,
+                                                     int fuente, int flujoMaximo, int primeraBodega, int numBodegas,
+                                                     int primerCamion, int numCamiones) {
+        ResultadoFlujo resultado = new ResultadoFlujo();
+        resultado.flujoMaximo = flujoMaximo;
+        
+        // Lado de la fuente del corte mínimo
+        RecorridoBFS recorrido = new RecorridoBFS(red.numVertices);
+        recorrido.recorrerResidual(red, capacidadResidual, fuente);
         
-        // Crear grafo residual
-        int[][] capacidadResidual = new int[numNodos][numNodos];
-        for (int i = 0; i < numNodos; i++) {
-            for (int j = 0; j < numNodos; j++) {
-                capacidadResidual[i][j] = capacidad[i][j];
+        resultado.capacidadBodega = new int[numBodegas];
+        resultado.flujoPorBodega = new int[numBodegas];
+        resultado.bodegaEnCorte = new boolean[numBodegas];
+        for (int i = 0; i < numBodegas; i++) {
+            int arco = red.arcoDeArista[primeraBodega + i];
+            resultado.capacidadBodega[i] = capacidad[arco];
+            resultado.flujoPorBodega[i] = capacidad[arco] - capacidadResidual[arco];
+            resultado.bodegaEnCorte[i] = cruzaCorte(red, recorrido, arco);
+        }
+        
+        // Cada camión tiene un arco de entrada y uno de salida con el mismo flujo
+        resultado.capacidadCamion = new int[numCamiones];
+        resultado.flujoPorCamion = new int[numCamiones];
+        resultado.camionEnCorte = new boolean[numCamiones];
+        for (int i = 0; i < numCamiones; i++) {
+            int arcoEntrada = red.arcoDeArista[primerCamion + 2 * i];
+            int arcoSalida = red.arcoDeArista[primerCamion + 2 * i + 1];
+            resultado.capacidadCamion[i] = capacidad[arcoEntrada];
+            resultado.flujoPorCamion[i] = capacidad[arcoEntrada] - capacidadResidual[arcoEntrada];
+            resultado.camionEnCorte[i] = cruzaCorte(red, recorrido, arcoEntrada) || cruzaCorte(red, recorrido, arcoSalida);
+        }
+        
+        return resultado;
+    }
+    
+    private static boolean cruzaCorte(GrafoCSR red, RecorridoBFS recorrido, int arco) {
+        return recorrido.visitado(red.origenes[arco]) && !recorrido.visitado(red.destinos[arco]);
+    }
+    
+    /**
+     * Imprime la carga de cada camión y bodega y los cuellos de botella del corte mínimo.
+     * 
+     * @param resultado Resultado del flujo máximo
+     */
+    private static void imprimirDetalle(ResultadoFlujo resultado) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Libros por camión (flujo / capacidad):\n");
+        for (int i = 0; i < resultado.flujoPorCamion.length; i++) {
+            sb.append("Camión ").append(i).append(": ").append(resultado.flujoPorCamion[i])
+              .append(" / ").append(resultado.capacidadCamion[i]).append('\n');
+        }
+        sb.append("Uso de bodegas (flujo / capacidad):\n");
+        for (int i = 0; i < resultado.flujoPorBodega.length; i++) {
+            sb.append("Bodega ").append(i).append(": ").append(resultado.flujoPorBodega[i])
+              .append(" / ").append(resultado.capacidadBodega[i]).append('\n');
+        }
+        sb.append("Corte mínimo (cuellos de botella):\n");
+        for (int i = 0; i < resultado.camionEnCorte.length; i++) {
+            if (resultado.camionEnCorte[i]) {
+                sb.append("Camión ").append(i).append('\n');
+            }
+        }
+        for (int i = 0; i < resultado.bodegaEnCorte.length; i++) {
+            if (resultado.bodegaEnCorte[i]) {
+                sb.append("Bodega ").append(i).append('\n');
             }
         }
+        System.out.print(sb);
+    }
+    
+    /**
+     * Aplica los cambios de capacidad del archivo de cambios, uno por línea:
+     *   camion <índice> <nueva_capacidad>
+     *   bodega <índice> <nueva_capacidad>
+     * y después de cada uno imprime el nuevo flujo máximo, reparado de forma incremental.
+     * 
+     * @param incremental Solucionador con la red residual y el flujo actuales
+     * @param archivoCambios Archivo con los cambios
+     * @param primeraBodega Índice en la lista de aristas de la arista de la primera bodega
+     * @param numBodegas Número de bodegas
+     * @param primerCamion Índice en la lista de aristas de la primera arista de camión
+     * @param numCamiones Número de camiones
+     */
+    private static void aplicarCambios(FlujoIncremental incremental, String archivoCambios,
+                                       int primeraBodega, int numBodegas, int primerCamion, int numCamiones)
+            throws IOException {
+        long tiempoTotal = 0;
+        int numCambios = 0;
+        try (BufferedReader br = new BufferedReader(new FileReader(archivoCambios))) {
+            String linea;
+            while ((linea = br.readLine()) != null) {
+                linea = linea.trim();
+                if (linea.isEmpty()) {
+                    continue;
+                }
+                String[] partes = linea.split("\\s+");
+                if (partes.length != 3) {
+                    throw new NumberFormatException("Cambio inválido: " + linea);
+                }
+                int indice = Integer.parseInt(partes[1]);
+                int capacidad = Integer.parseInt(partes[2]);
+                if (capacidad < 0) {
+                    throw new NumberFormatException("Capacidad negativa: " + linea);
+                }
+                
+                long inicio = System.nanoTime();
+                if (partes[0].equals("camion") && indice >= 0 && indice < numCamiones) {
+                    // Un camión tiene dos arcos con su capacidad: hacia el camión y desde el camión
+                    incremental.cambiarCapacidad(incremental.red.arcoDeArista[primerCamion + 2 * indice], capacidad);
+                    incremental.cambiarCapacidad(incremental.red.arcoDeArista[primerCamion + 2 * indice + 1], capacidad);
+                } else if (partes[0].equals("bodega") && indice >= 0 && indice < numBodegas) {
+                    incremental.cambiarCapacidad(incremental.red.arcoDeArista[primeraBodega + indice], capacidad);
+                } else {
+                    throw new NumberFormatException("Cambio inválido: " + linea);
+                }
+                tiempoTotal += System.nanoTime() - inicio;
+                numCambios++;
+                
+                System.out.println("Cambio: " + linea);
+                System.out.println("La cantidad máxima de libros que se pueden transportar en un día es: " + incremental.flujoMaximo);
+            }
+        }
+        if (numCambios > 0) {
+            System.out.printf("Tiempo promedio por cambio: %.6f ms%n", tiempoTotal / 1e6 / numCambios);
+        }
+    }
+    
+    /**
+     * Implementación del algoritmo de Ford-Fulkerson (Edmonds-Karp) para encontrar el flujo máximo.
+     * 
+     * @param red Red residual en formato CSR, con las capacidades en los pesos
+     * @param capacidadResidual Capacidad residual de cada arco; se actualiza con el flujo encontrado
+     * @param fuente Nodo fuente
+     * @param sumidero Nodo sumidero
+     * @return Flujo máximo desde la fuente hasta el sumidero
+     */
+    static int fordFulkerson(GrafoCSR red, int[] capacidadResidual, int fuente, int sumidero) {
+        int flujoMaximo = 0;
         
-        // Buscar caminos de aumento mientras existan
-        int[] padre = new int[numNodos];
-        while (bfs(capacidadResidual, fuente, sumidero, padre)) {
+        // Buscar caminos de aumento mientras existan; el BFS reutiliza su cola y sus marcas
+        RecorridoBFS recorrido = new RecorridoBFS(red.numVertices);
+        int[] arcoPadre = new int[red.numVertices];
+        int caminos = 0;
+        while (recorrido.buscarCamino(red, capacidadResidual, fuente, sumidero, arcoPadre)) {
+            caminos++;
+            
             // Encontrar la capacidad mínima en el camino de aumento
             int flujoRuta = Integer.MAX_VALUE;
-            for (int v = sumidero; v != fuente; v = padre[v]) {
-                int u = padre[v];
-                flujoRuta = Math.min(flujoRuta, capacidadResidual[u][v]);
+            for (int v = sumidero; v != fuente; v = red.origenes[arcoPadre[v]]) {
+                flujoRuta = Math.min(flujoRuta, capacidadResidual[arcoPadre[v]]);
             }
             
-            // Actualizar capacidades residuales y flujos
-            for (int v = sumidero; v != fuente; v = padre[v]) {
-                int u = padre[v];
-                capacidadResidual[u][v] -= flujoRuta;
-                capacidadResidual[v][u] += flujoRuta;
-                flujo[u][v] += flujoRuta;
-                flujo[v][u] -= flujoRuta;
+            // Actualizar capacidades residuales
+            for (int v = sumidero; v != fuente; v = red.origenes[arcoPadre[v]]) {
+                int arco = arcoPadre[v];
+                capacidadResidual[arco] -= flujoRuta;
+                capacidadResidual[red.pareja[arco]] += flujoRuta;
             }
             
             flujoMaximo += flujoRuta;
         }
+        Metricas.sumar("edmonds_karp.caminos_aumentantes", caminos);
         
         return flujoMaximo;
     }
     
     /**
-     * Implementación de BFS para encontrar un camino de aumento en el grafo residual.
+     * Implementación del algoritmo de Dinic: en cada fase se construye el grafo de niveles con
+     * BFS desde la fuente y se envía un flujo bloqueante con búsquedas en profundidad que
+     * avanzan solo de un nivel al siguiente. El puntero de arco actual de cada nodo hace que
+     * ninguna arista se revise dos veces dentro de la misma fase. Complejidad: O(V² E)
      * 
-     * @param capacidadResidual Matriz de capacidades residuales
+     * @param red Red residual en formato CSR, con las capacidades en los pesos
+     * @param capacidadResidual Capacidad residual de cada arco; se actualiza con el flujo encontrado
      * @param fuente Nodo fuente
      * @param sumidero Nodo sumidero
-     * @param padre Arreglo para almacenar el camino encontrado
-     * @return true si se encontró un camino de aumento, false en caso contrario
+     * @return Flujo máximo desde la fuente hasta el sumidero
      */
-    private static boolean bfs(int[][] capacidadResidual, int fuente, int sumidero, int[] padre) {
-        int numNodos = capacidadResidual.length;
-        boolean[] visitado = new boolean[numNodos];
+    static int dinic(GrafoCSR red, int[] capacidadResidual, int fuente, int sumidero) {
+        return dinic(red, capacidadResidual, fuente, sumidero, Integer.MAX_VALUE, null, null);
+    }
+    
+    /**
+     * Dinic que se detiene al enviar limite unidades de flujo.
+     * 
+     * @param limite Flujo máximo a enviar
+     * @return Flujo enviado, a lo sumo limite
+     */
+    private static int dinic(GrafoCSR red, int[] capacidadResidual, int fuente, int sumidero, int limite) {
+        return dinic(red, capacidadResidual, fuente, sumidero, limite, null, null);
+    }
+    
+    /**
+     * Dinic que, si se dan costos y potenciales, sólo usa los arcos de costo reducido 0
+     * (los que están en algún camino más corto), para el flujo de costo mínimo.
+     * 
+     * @param limite Flujo máximo a enviar
+     * @param costo Costo de cada arco, o null para usar todos los arcos
+     * @param potencial Potencial de cada nodo (sólo si costo no es null)
+     * @return Flujo enviado, a lo sumo limite
+     */
+    private static int dinic(GrafoCSR red, int[] capacidadResidual, int fuente, int sumidero, int limite,
+                             int[] costo, long[] potencial) {
+        int numNodos = red.numVertices;
+        int[] nivel = new int[numNodos];
+        int[] arcoActual = new int[numNodos];
+        int[] cola = new int[numNodos];
+        int[] camino = new int[numNodos];
+        int flujoMaximo = 0;
+        int fases = 0;
+        int caminos = 0;
         
-        Queue<Integer> cola = new LinkedList<>();
-        cola.add(fuente);
-        visitado[fuente] = true;
-        padre[fuente] = -1;
+        while (true) {
+            // Construir el grafo de niveles
+            fases++;
+            Arrays.fill(nivel, -1);
+            nivel[fuente] = 0;
+            int cabeza = 0;
+            int fin = 0;
+            cola[fin++] = fuente;
+            while (cabeza < fin) {
+                int u = cola[cabeza++];
+                for (int a = red.desplazamientos[u]; a < red.desplazamientos[u + 1]; a++) {
+                    int v = red.destinos[a];
+                    if (nivel[v] < 0 && capacidadResidual[a] > 0
+                            && (costo == null || costo[a] + potencial[u] - potencial[v] == 0)) {
+                        nivel[v] = nivel[u] + 1;
+                        cola[fin++] = v;
+                    }
+                }
+            }
+            if (nivel[sumidero] < 0) {
+                Metricas.sumar("dinic.fases", fases);
+                Metricas.sumar("dinic.caminos_aumentantes", caminos);
+                return flujoMaximo;
+            }
+            
+            // Flujo bloqueante con búsqueda en profundidad iterativa
+            System.arraycopy(red.desplazamientos, 0, arcoActual, 0, numNodos);
+            int profundidad = 0;
+            int u = fuente;
+            while (true) {
+                if (u == sumidero) {
+                    // Aumentar por el camino encontrado
+                    int flujoRuta = limite - flujoMaximo;
+                    for (int i = 0; i < profundidad; i++) {
+                        flujoRuta = Math.min(flujoRuta, capacidadResidual[camino[i]]);
+                    }
+                    int primeroSaturado = -1;
+                    for (int i = 0; i < profundidad; i++) {
+                        int arco = camino[i];
+                        capacidadResidual[arco] -= flujoRuta;
+                        capacidadResidual[red.pareja[arco]] += flujoRuta;
+                        if (primeroSaturado < 0 && capacidadResidual[arco] == 0) {
+                            primeroSaturado = i;
+                        }
+                    }
+                    flujoMaximo += flujoRuta;
+                    caminos++;
+                    if (flujoMaximo == limite) {
+                        Metricas.sumar("dinic.fases", fases);
+                        Metricas.sumar("dinic.caminos_aumentantes", caminos);
+                        return flujoMaximo;
+                    }
+                    
+                    // Retroceder hasta antes del primer arco saturado
+                    profundidad = primeroSaturado;
+                    u = red.origenes[camino[profundidad]];
+                    continue;
+                }
+                
+                // Buscar un arco admisible desde u
+                int finArcos = red.desplazamientos[u + 1];
+                while (arcoActual[u] < finArcos) {
+                    int a = arcoActual[u];
+                    int v = red.destinos[a];
+                    if (capacidadResidual[a] > 0 && nivel[v] == nivel[u] + 1
+                            && (costo == null || costo[a] + potencial[u] - potencial[v] == 0)) {
+                        break;
+                    }
+                    arcoActual[u]++;
+                }
+                
+                if (arcoActual[u] < finArcos) {
+                    int a = arcoActual[u];
+                    camino[profundidad++] = a;
+                    u = red.destinos[a];
+                } else {
+                    // Callejón sin salida: sacar u del grafo de niveles y retroceder
+                    nivel[u] = -1;
+                    if (profundidad == 0) {
+                        break;
+                    }
+                    profundidad--;
+                    u = red.origenes[camino[profundidad]];
+                    arcoActual[u]++;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Flujo máximo de costo mínimo por caminos más cortos sucesivos: en cada iteración se busca
+     * con Dijkstra la distancia más corta de la fuente al sumidero en la red residual y se
+     * envía un flujo bloqueante (Dinic) por todos los caminos de esa longitud. Para que
+     * Dijkstra sea válido con los arcos inversos (de costo negativo) se usan potenciales de
+     * Johnson: el costo reducido c(u, v) + p(u) - p(v) nunca es negativo. Dijkstra se detiene al
+     * extraer el sumidero; los nodos no extraídos actualizan su potencial con la distancia al
+     * sumidero, lo que conserva los costos reducidos no negativos.
+     * Complejidad: O(K (E + V) log V) más los flujos bloqueantes, donde K es el número de
+     * longitudes distintas de camino más corto (a lo sumo el número de aumentos).
+     * 
+     * @param red Red residual en formato CSR, con las capacidades en los pesos
+     * @param capacidadResidual Capacidad residual de cada arco; se actualiza con el flujo encontrado
+     * @param costo Costo por unidad de cada arco (el arco inverso tiene el costo negado)
+     * @param fuente Nodo fuente
+     * @param sumidero Nodo sumidero
+     * @return Flujo máximo y su costo mínimo, o null si hay un ciclo de costo negativo
+     */
+    private static FlujoConCosto flujoCostoMinimo(GrafoCSR red, int[] capacidadResidual, int[] costo,
+                                                  int fuente, int sumidero) {
+        int numNodos = red.numVertices;
+        long[] potencial = potencialesIniciales(red, capacidadResidual, costo, fuente);
+        if (potencial == null) {
+            return null;
+        }
+        long[] distancia = new long[numNodos];
+        boolean[] extraido = new boolean[numNodos];
+        MonticuloIndexado monticulo = new MonticuloIndexado(numNodos);
+        FlujoConCosto resultado = new FlujoConCosto();
         
-        while (!cola.isEmpty()) {
-            int u = cola.poll();
+        while (true) {
+            // Dijkstra con costos reducidos
+            Arrays.fill(distancia, Long.MAX_VALUE);
+            Arrays.fill(extraido, false);
+            distancia[fuente] = 0;
+            monticulo.limpiar();
+            monticulo.insertarODisminuir(fuente, 0);
+            while (!monticulo.estaVacio()) {
+                int u = monticulo.extraerMinimo();
+                extraido[u] = true;
+                if (u == sumidero) {
+                    break;
+                }
+                for (int a = red.desplazamientos[u]; a < red.desplazamientos[u + 1]; a++) {
+                    int v = red.destinos[a];
+                    if (capacidadResidual[a] > 0 && !extraido[v]) {
+                        long nuevaDistancia = distancia[u] + costo[a] + potencial[u] - potencial[v];
+                        if (nuevaDistancia < distancia[v]) {
+                            distancia[v] = nuevaDistancia;
+                            monticulo.insertarODisminuir(v, nuevaDistancia);
+                        }
+                    }
+                }
+            }
+            if (!extraido[sumidero]) {
+                return resultado;
+            }
             
+            // Actualizar los potenciales: los caminos más cortos quedan con costo reducido 0
+            long distanciaSumidero = distancia[sumidero];
             for (int v = 0; v < numNodos; v++) {
-                if (!visitado[v] && capacidadResidual[u][v] > 0) {
-                    cola.add(v);
-                    padre[v] = u;
-                    visitado[v] = true;
+                potencial[v] += extraido[v] ? distancia[v] : distanciaSumidero;
+            }
+            
+            // Enviar un flujo bloqueante por todos los caminos más cortos a la vez; cada unidad
+            // cuesta potencial[sumidero] - potencial[fuente]
+            int flujoFase = dinic(red, capacidadResidual, fuente, sumidero, Integer.MAX_VALUE, costo, potencial);
+            resultado.costo += (long) flujoFase * (potencial[sumidero] - potencial[fuente]);
+            resultado.flujo += flujoFase;
+        }
+    }
+    
+    /**
+     * Potenciales iniciales para flujoCostoMinimo. Si ningún arco con capacidad tiene costo
+     * negativo bastan potenciales 0; si no, se usan las distancias de Bellman-Ford desde la
+     * fuente (0 para los nodos no alcanzables, a los que tampoco llegará ningún camino).
+     * 
+     * @return Potencial de cada nodo, o null si hay un ciclo de costo negativo
+     */
+    private static long[] potencialesIniciales(GrafoCSR red, int[] capacidadResidual, int[] costo, int fuente) {
+        int numNodos = red.numVertices;
+        long[] potencial = new long[numNodos];
+        boolean hayNegativos = false;
+        for (int a = 0; a < red.numArcos; a++) {
+            if (capacidadResidual[a] > 0 && costo[a] < 0) {
+                hayNegativos = true;
+                break;
+            }
+        }
+        if (!hayNegativos) {
+            return potencial;
+        }
+        
+        Arrays.fill(potencial, Long.MAX_VALUE);
+        potencial[fuente] = 0;
+        for (int pasada = 0; pasada < numNodos; pasada++) {
+            boolean cambio = false;
+            for (int a = 0; a < red.numArcos; a++) {
+                int u = red.origenes[a];
+                if (capacidadResidual[a] > 0 && potencial[u] != Long.MAX_VALUE
+                        && potencial[u] + costo[a] < potencial[red.destinos[a]]) {
+                    potencial[red.destinos[a]] = potencial[u] + costo[a];
+                    cambio = true;
+                }
+            }
+            if (!cambio) {
+                for (int v = 0; v < numNodos; v++) {
+                    if (potencial[v] == Long.MAX_VALUE) {
+                        potencial[v] = 0;
+                    }
+                }
+                return potencial;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Implementación de push-relabel que procesa siempre el nodo activo de mayor altura,
+     * con reetiquetado global inicial (BFS inverso desde el sumidero) y heurística de hueco:
+     * si una altura h queda vacía, los nodos con altura entre h y V ya no pueden llegar al
+     * sumidero y se elevan a V + 1 para que devuelvan su exceso a la fuente.
+     * Complejidad: O(V² √E)
+     * 
+     * @param red Red residual en formato CSR, con las capacidades en los pesos
+     * @param capacidadResidual Capacidad residual de cada arco; se actualiza con el flujo encontrado
+     * @param fuente Nodo fuente
+     * @param sumidero Nodo sumidero
+     * @return Flujo máximo desde la fuente hasta el sumidero
+     */
+    static int pushRelabel(GrafoCSR red, int[] capacidadResidual, int fuente, int sumidero) {
+        int numNodos = red.numVertices;
+        int alturaMaxima = 2 * numNodos;
+        int[] altura = new int[numNodos];
+        long[] exceso = new long[numNodos];
+        int[] arcoActual = Arrays.copyOf(red.desplazamientos, numNodos);
+        int[] numEnAltura = new int[alturaMaxima + 1];
+        
+        // Listas de nodos activos por altura (pilas enlazadas)
+        int[] primeroActivo = new int[alturaMaxima + 1];
+        int[] siguienteActivo = new int[numNodos];
+        boolean[] activo = new boolean[numNodos];
+        Arrays.fill(primeroActivo, -1);
+        
+        // Reetiquetado global: altura = distancia al sumidero en el grafo residual
+        Arrays.fill(altura, numNodos);
+        altura[sumidero] = 0;
+        int[] cola = new int[numNodos];
+        int cabeza = 0;
+        int fin = 0;
+        cola[fin++] = sumidero;
+        while (cabeza < fin) {
+            int v = cola[cabeza++];
+            for (int a = red.desplazamientos[v]; a < red.desplazamientos[v + 1]; a++) {
+                int u = red.destinos[a];
+                if (altura[u] == numNodos && u != fuente && capacidadResidual[red.pareja[a]] > 0) {
+                    altura[u] = altura[v] + 1;
+                    cola[fin++] = u;
+                }
+            }
+        }
+        altura[fuente] = numNodos;
+        for (int v = 0; v < numNodos; v++) {
+            numEnAltura[altura[v]]++;
+        }
+        
+        // Saturar las aristas que salen de la fuente
+        int alturaActiva = 0;
+        long empujes = 0;
+        long reetiquetados = 0;
+        int huecos = 0;
+        for (int a = red.desplazamientos[fuente]; a < red.desplazamientos[fuente + 1]; a++) {
+            int v = red.destinos[a];
+            int delta = capacidadResidual[a];
+            if (delta > 0) {
+                capacidadResidual[a] -= delta;
+                capacidadResidual[red.pareja[a]] += delta;
+                exceso[v] += delta;
+                exceso[fuente] -= delta;
+                if (v != sumidero && !activo[v]) {
+                    activo[v] = true;
+                    siguienteActivo[v] = primeroActivo[altura[v]];
+                    primeroActivo[altura[v]] = v;
+                    alturaActiva = Math.max(alturaActiva, altura[v]);
                 }
             }
         }
         
-        return visitado[sumidero];
+        while (true) {
+            // Tomar el nodo activo de mayor altura
+            while (alturaActiva >= 0 && primeroActivo[alturaActiva] < 0) {
+                alturaActiva--;
+            }
+            if (alturaActiva < 0) {
+                break;
+            }
+            int u = primeroActivo[alturaActiva];
+            primeroActivo[alturaActiva] = siguienteActivo[u];
+            activo[u] = false;
+            
+            // Descargar u
+            while (exceso[u] > 0) {
+                int finArcos = red.desplazamientos[u + 1];
+                if (arcoActual[u] == finArcos) {
+                    // Reetiquetar
+                    reetiquetados++;
+                    int alturaAnterior = altura[u];
+                    int nuevaAltura = alturaMaxima;
+                    for (int a = red.desplazamientos[u]; a < finArcos; a++) {
+                        if (capacidadResidual[a] > 0) {
+                            nuevaAltura = Math.min(nuevaAltura, altura[red.destinos[a]] + 1);
+                        }
+                    }
+                    numEnAltura[alturaAnterior]--;
+                    altura[u] = nuevaAltura;
+                    numEnAltura[nuevaAltura]++;
+                    arcoActual[u] = red.desplazamientos[u];
+                    
+                    // Heurística de hueco
+                    if (numEnAltura[alturaAnterior] == 0 && alturaAnterior < numNodos) {
+                        huecos++;
+                        for (int v = 0; v < numNodos; v++) {
+                            if (altura[v] > alturaAnterior && altura[v] < numNodos && v != fuente) {
+                                numEnAltura[altura[v]]--;
+                                altura[v] = numNodos + 1;
+                                numEnAltura[altura[v]]++;
+                                arcoActual[v] = red.desplazamientos[v];
+                            }
+                        }
+                        // Los nodos activos movidos siguen en sus listas antiguas: reubicarlos
+                        for (int h = alturaAnterior + 1; h < numNodos; h++) {
+                            while (primeroActivo[h] >= 0) {
+                                int v = primeroActivo[h];
+                                primeroActivo[h] = siguienteActivo[v];
+                                siguienteActivo[v] = primeroActivo[altura[v]];
+                                primeroActivo[altura[v]] = v;
+                            }
+                        }
+                        alturaActiva = Math.max(alturaActiva, numNodos + 1);
+                    }
+                    if (altura[u] >= alturaMaxima) {
+                        break;
+                    }
+                    continue;
+                }
+                
+                int a = arcoActual[u];
+                int v = red.destinos[a];
+                if (capacidadResidual[a] > 0 && altura[u] == altura[v] + 1) {
+                    // Empujar
+                    empujes++;
+                    int delta = (int) Math.min(exceso[u], capacidadResidual[a]);
+                    capacidadResidual[a] -= delta;
+                    capacidadResidual[red.pareja[a]] += delta;
+                    exceso[u] -= delta;
+                    exceso[v] += delta;
+                    if (v != fuente && v != sumidero && !activo[v]) {
+                        activo[v] = true;
+                        siguienteActivo[v] = primeroActivo[altura[v]];
+                        primeroActivo[altura[v]] = v;
+                    }
+                } else {
+                    arcoActual[u]++;
+                }
+            }
+            
+            // Tras reetiquetar u, los nodos a los que empujó pueden estar hasta altura[u] - 1,
+            // por encima de la altura activa con la que se tomó u
+            alturaActiva = Math.max(alturaActiva, altura[u]);
+        }
+        Metricas.sumar("push_relabel.empujes", empujes);
+        Metricas.sumar("push_relabel.reetiquetados", reetiquetados);
+        Metricas.sumar("push_relabel.huecos", huecos);
+        
+        return (int) exceso[sumidero];
+    }
+    
+    /**
+     * Flujo máximo persistente: conserva la red residual y el flujo actual para repararlos
+     * cuando cambia la capacidad de un arco, en lugar de resolver todo de nuevo.
+     * - Si la capacidad sube, se agrega la diferencia al residual y se buscan caminos de aumento.
+     * - Si baja por debajo del flujo que lleva el arco (u, v), el arco se satura con la nueva
+     *   capacidad y queda un exceso en u y un déficit en v. Primero se intenta desviar ese
+     *   exceso de u a v por otros caminos; lo que no se puede desviar se devuelve de u a la
+     *   fuente y se retira del sumidero hacia v, con lo que el flujo total baja en esa cantidad.
+     *   Al final se buscan caminos de aumento por si la reducción liberó alguno.
+     */
+    static class FlujoIncremental {
+        GrafoCSR red;
+        int[] capacidad;
+        int[] capacidadResidual;
+        int fuente;
+        int sumidero;
+        int flujoMaximo;
+        
+        FlujoIncremental(GrafoCSR red, int[] capacidadResidual, int fuente, int sumidero, int flujoMaximo) {
+            this.red = red;
+            this.capacidad = Arrays.copyOf(red.pesos, red.numArcos);
+            this.capacidadResidual = capacidadResidual;
+            this.fuente = fuente;
+            this.sumidero = sumidero;
+            this.flujoMaximo = flujoMaximo;
+        }
+        
+        /**
+         * Cambia la capacidad de un arco directo y repara el flujo máximo.
+         * 
+         * @param arco Arco directo en la red residual
+         * @param nuevaCapacidad Nueva capacidad del arco
+         */
+        void cambiarCapacidad(int arco, int nuevaCapacidad) {
+            int flujoArco = capacidad[arco] - capacidadResidual[arco];
+            capacidad[arco] = nuevaCapacidad;
+            
+            if (nuevaCapacidad >= flujoArco) {
+                capacidadResidual[arco] = nuevaCapacidad - flujoArco;
+            } else {
+                // Dejar el arco con flujo nuevaCapacidad; sobran flujoArco - nuevaCapacidad unidades
+                int u = red.origenes[arco];
+                int v = red.destinos[arco];
+                int sobrante = flujoArco - nuevaCapacidad;
+                capacidadResidual[arco] = 0;
+                capacidadResidual[red.pareja[arco]] -= sobrante;
+                
+                // Desviar el exceso de u a v por otros caminos
+                sobrante -= dinic(red, capacidadResidual, u, v, sobrante);
+                
+                // Cancelar el resto: devolverlo de u a la fuente y retirarlo del sumidero a v
+                if (sobrante > 0) {
+                    dinic(red, capacidadResidual, u, fuente, sobrante);
+                    dinic(red, capacidadResidual, sumidero, v, sobrante);
+                    flujoMaximo -= sobrante;
+                }
+            }
+            
+            flujoMaximo += dinic(red, capacidadResidual, fuente, sumidero);
+        }
+    }
+    
+    // Flujo máximo y su costo mínimo
+    static class FlujoConCosto {
+        int flujo;
+        long costo;
+    }
+    
+    /**
+     * Resultado de un flujo máximo: carga de cada camión y bodega y corte mínimo. Los camiones
+     * y bodegas en el corte son los cuellos de botella: van llenos y aumentar su capacidad es
+     * la única forma de aumentar el flujo.
+     */
+    static class ResultadoFlujo {
+        int flujoMaximo;
+        int[] flujoPorCamion;
+        int[] capacidadCamion;
+        boolean[] camionEnCorte;
+        int[] flujoPorBodega;
+        int[] capacidadBodega;
+        boolean[] bodegaEnCorte;
+    }
+    
+    // Método auxiliar para leer opciones de la forma --nombre=valor
+    private static String obtenerOpcion(String[] args, String nombre, String valorPorDefecto) {
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].startsWith(nombre + "=")) {
+                return args[i].substring(nombre.length() + 1);
+            }
+        }
+        return valorPorDefecto;
+    }
+    
+    // Método auxiliar para saber si se pasó una opción sin valor (--nombre)
+    private static boolean tieneOpcion(String[] args, String nombre) {
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals(nombre)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
\ No newline at end of file
@@ -0,0 +1,312 @@
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Escritor de matrices de distancias fila por fila, para volcar cada fila en cuanto se
+ * calcula sin guardar la matriz sólo para imprimirla. Los bytes se acumulan en un búfer de
+ * 1 MB que se vuelca de una vez a la salida estándar o a un FileChannel.
+ *
+ * Formato texto: el mismo que imprimía CaminosMinimos, una línea en blanco y el título
+ * "Matriz de costos mínimos (algoritmo):" y luego una línea por fila con cada valor (o INF)
+ * seguido de un tabulador. Los enteros se convierten a ASCII directamente sobre el búfer.
+ *
+ * Formato varint (binario): cada matriz empieza con un encabezado de enteros de 32 bits
+ * little-endian, como ArchivoGrafoBinario, seguido de las celdas fila por fila:
+ * <pre>
+ *   MAGICO  VERSION  numVertices  longitudTitulo  titulo[longitudTitulo] (UTF-8)
+ *   celdas[numVertices * numVertices]
+ * </pre>
+ * Cada celda es un varint LEB128: 0 para INF y, para una distancia d, zigzag(d) + 1. Las
+ * distancias pequeñas ocupan uno o dos bytes en lugar de los cuatro a once del texto.
+ *
+ * Uso del conversor a texto:
+ *   java EscritorMatriz matrices.bin
+ */
+public class EscritorMatriz implements Closeable {
+    static final int MAGICO = 0x5654414D; // "MATV"
+    static final int VERSION = 1;
+    private static final int INFINITO = Integer.MAX_VALUE;
+    private static final int TAMANO_BUFER = 1 << 20;
+    // Espacio que se deja libre antes de cada celda: signo, 10 dígitos y tabulador, o 5 bytes de varint
+    private static final int MAXIMO_POR_CELDA = 16;
+
+    private final OutputStream salida;
+    private final PrintStream consola;  // System.out en el modo de salida estándar, si no null
+    private final boolean varint;
+    private final boolean cerrarSalida;
+    private final byte[] bufer = new byte[TAMANO_BUFER];
+    private int posicion;
+    long bytesEscritos;
+    long nanosEscritura;  // tiempo dentro de escribirFila y vaciar
+
+    private EscritorMatriz(OutputStream salida, boolean varint, boolean cerrarSalida) {
+        this.salida = salida;
+        this.consola = salida instanceof PrintStream ? (PrintStream) salida : null;
+        this.varint = varint;
+        this.cerrarSalida = cerrarSalida;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Uso: java EscritorMatriz matrices.bin");
+            return;
+        }
+        try (EscritorMatriz texto = salidaEstandar()) {
+            convertirATexto(args[0], texto);
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Error al leer el archivo: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Escritor de texto sobre la salida estándar. Cada matriz se vuelca al terminarla, de modo
+     * que lo que se imprima con System.out entre dos matrices queda en su lugar.
+     */
+    static EscritorMatriz salidaEstandar() {
+        return new EscritorMatriz(System.out, false, false);
+    }
+
+    /**
+     * Abre un archivo para escribir matrices, reemplazándolo si existe.
+     *
+     * @param archivo Ruta del archivo
+     * @param varint true para el formato binario varint, false para texto
+     */
+    static EscritorMatriz abrir(String archivo, boolean varint) throws IOException {
+        FileChannel canal = FileChannel.open(Paths.get(archivo), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        return new EscritorMatriz(Channels.newOutputStream(canal), varint, true);
+    }
+
+    /**
+     * Comienza una matriz nueva: escribe su título (texto) o su encabezado (varint).
+     *
+     * @param algoritmo Nombre del algoritmo que la calculó
+     * @param numVertices Número de filas y de columnas
+     */
+    void comenzarMatriz(String algoritmo, int numVertices) {
+        if (varint) {
+            byte[] titulo = algoritmo.getBytes(StandardCharsets.UTF_8);
+            asegurarEspacio(16 + titulo.length);
+            escribirEntero32(MAGICO);
+            escribirEntero32(VERSION);
+            escribirEntero32(numVertices);
+            escribirEntero32(titulo.length);
+            agregarBytes(titulo);
+        } else if (consola != null) {
+            // Con la codificación de la consola, como el resto de lo que imprime el programa
+            volcar();
+            consola.println("\nMatriz de costos mínimos (" + algoritmo + "):");
+        } else {
+            agregarBytes(("\nMatriz de costos mínimos (" + algoritmo + "):\n").getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    void escribirFila(int[] fila) {
+        escribirFila(fila, 0, fila.length);
+    }
+
+    /**
+     * Escribe una fila de la matriz.
+     *
+     * @param valores Arreglo que contiene la fila
+     * @param desde Posición de la primera celda de la fila
+     * @param cantidad Número de celdas
+     */
+    void escribirFila(int[] valores, int desde, int cantidad) {
+        long inicio = System.nanoTime();
+        for (int j = desde; j < desde + cantidad; j++) {
+            if (posicion > TAMANO_BUFER - MAXIMO_POR_CELDA) {
+                volcar();
+            }
+            if (varint) {
+                escribirVarint(valores[j] == INFINITO ? 0 : zigzag(valores[j]) + 1);
+            } else if (valores[j] == INFINITO) {
+                bufer[posicion++] = 'I';
+                bufer[posicion++] = 'N';
+                bufer[posicion++] = 'F';
+                bufer[posicion++] = '\t';
+            } else {
+                escribirDecimal(valores[j]);
+                bufer[posicion++] = '\t';
+            }
+        }
+        if (!varint) {
+            if (posicion == TAMANO_BUFER) {
+                volcar();
+            }
+            bufer[posicion++] = '\n';
+        }
+        nanosEscritura += System.nanoTime() - inicio;
+    }
+
+    /**
+     * Termina la matriz actual y vuelca el búfer a la salida.
+     */
+    void terminarMatriz() {
+        long inicio = System.nanoTime();
+        volcar();
+        try {
+            salida.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        nanosEscritura += System.nanoTime() - inicio;
+    }
+
+    @Override
+    public void close() {
+        terminarMatriz();
+        if (cerrarSalida) {
+            try {
+                salida.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Lee un archivo varint y escribe sus matrices, en orden, con el escritor dado.
+     *
+     * @param archivo Archivo en formato varint
+     * @param destino Escritor de destino (normalmente de texto)
+     */
+    static void convertirATexto(String archivo, EscritorMatriz destino) throws IOException {
+        try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(Paths.get(archivo)), TAMANO_BUFER))) {
+            while (true) {
+                int magico;
+                try {
+                    magico = leerEntero32(entrada);
+                } catch (EOFException e) {
+                    return;
+                }
+                if (magico != MAGICO || leerEntero32(entrada) != VERSION) {
+                    throw new IOException("no es un archivo de matrices en formato varint");
+                }
+                int numVertices = leerEntero32(entrada);
+                byte[] titulo = new byte[leerEntero32(entrada)];
+                entrada.readFully(titulo);
+                destino.comenzarMatriz(new String(titulo, StandardCharsets.UTF_8), numVertices);
+                int[] fila = new int[numVertices];
+                for (int i = 0; i < numVertices; i++) {
+                    for (int j = 0; j < numVertices; j++) {
+                        long codigo = leerVarint(entrada);
+                        fila[j] = codigo == 0 ? INFINITO : deshacerZigzag(codigo - 1);
+                    }
+                    destino.escribirFila(fila);
+                }
+                destino.terminarMatriz();
+            }
+        }
+    }
+
+    private void volcar() {
+        if (posicion == 0) {
+            return;
+        }
+        try {
+            salida.write(bufer, 0, posicion);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        bytesEscritos += posicion;
+        posicion = 0;
+    }
+
+    private void asegurarEspacio(int bytes) {
+        if (posicion + bytes > TAMANO_BUFER) {
+            volcar();
+        }
+    }
+
+    private void agregarBytes(byte[] bytes) {
+        for (int i = 0; i < bytes.length; ) {
+            if (posicion == TAMANO_BUFER) {
+                volcar();
+            }
+            int cantidad = Math.min(bytes.length - i, TAMANO_BUFER - posicion);
+            System.arraycopy(bytes, i, bufer, posicion, cantidad);
+            posicion += cantidad;
+            i += cantidad;
+        }
+    }
+
+    // Escribe el entero en decimal: los dígitos se generan del menos significativo al más
+    // significativo y luego se invierten en su lugar
+    private void escribirDecimal(int valor) {
+        long resto = valor;
+        if (resto < 0) {
+            bufer[posicion++] = '-';
+            resto = -resto;
+        }
+        int inicio = posicion;
+        do {
+            bufer[posicion++] = (byte) ('0' + resto % 10);
+            resto /= 10;
+        } while (resto != 0);
+        for (int i = inicio, j = posicion - 1; i < j; i++, j--) {
+            byte temporal = bufer[i];
+            bufer[i] = bufer[j];
+            bufer[j] = temporal;
+        }
+    }
+
+    private void escribirVarint(long valor) {
+        while (valor >= 0x80) {
+            bufer[posicion++] = (byte) (valor | 0x80);
+            valor >>>= 7;
+        }
+        bufer[posicion++] = (byte) valor;
+    }
+
+    private void escribirEntero32(int valor) {
+        bufer[posicion++] = (byte) valor;
+        bufer[posicion++] = (byte) (valor >>> 8);
+        bufer[posicion++] = (byte) (valor >>> 16);
+        bufer[posicion++] = (byte) (valor >>> 24);
+    }
+
+    // Los negativos pequeños también quedan en pocos bytes: 0, -1, 1, -2, ... -> 0, 1, 2, 3, ...
+    private static long zigzag(int valor) {
+        return ((valor << 1) ^ (valor >> 31)) & 0xFFFFFFFFL;
+    }
+
+    private static int deshacerZigzag(long codigo) {
+        int valor = (int) codigo;
+        return (valor >>> 1) ^ -(valor & 1);
+    }
+
+    private static long leerVarint(InputStream entrada) throws IOException {
+        long valor = 0;
+        for (int desplazamiento = 0; desplazamiento < 64; desplazamiento += 7) {
+            int b = entrada.read();
+            if (b < 0) {
+                throw new EOFException("matriz incompleta");
+            }
+            valor |= (long) (b & 0x7F) << desplazamiento;
+            if (b < 0x80) {
+                return valor;
+            }
+        }
+        throw new IOException("varint inválido");
+    }
+
+    private static int leerEntero32(DataInputStream entrada) throws IOException {
+        return Integer.reverseBytes(entrada.readInt());
+    }
+}
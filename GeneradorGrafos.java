@@ -0,0 +1,309 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+
+/**
+ * Generadores deterministas de grafos sintéticos para medir el rendimiento de los cuatro
+ * programas a distintos tamaños. La misma semilla produce siempre el mismo grafo.
+ * - cuadricula: red vial en cuadrícula de lado ⌊√n⌋, con costos entre 10 y 100.
+ * - disperso: n * 8 aristas dirigidas con extremos al azar (grado medio 8).
+ * - denso: cada arista dirigida existe con probabilidad 0.1 (n² / 10 aristas).
+ * - potencia: grafo de ley de potencia por enlace preferencial (Barabási-Albert), cada vértice
+ *   nuevo se une a 4 vértices elegidos con probabilidad proporcional a su grado.
+ * - capas: instancia de distribución de libros con fábricas, bodegas y librerías, donde los
+ *   camiones van de fábricas a bodegas, de bodegas a librerías o directo de fábrica a librería.
+ * La cuadrícula y el grafo de ley de potencia son no dirigidos: con dirigido = true cada
+ * arista se agrega en los dos sentidos.
+ *
+ * Uso:
+ *   java GeneradorGrafos caminos|componentes|vias cuadricula|disperso|denso|potencia <vértices> <semilla> <salida>
+ *   java GeneradorGrafos distribucion <camiones> <semilla> <salida>
+ */
+public class GeneradorGrafos {
+    private static final int GRADO_DISPERSO = 8;
+    private static final double DENSIDAD = 0.1;
+    private static final int ENLACES_POTENCIA = 4;
+
+    public static void main(String[] args) {
+        if (args.length < 4 || (!args[0].equals("distribucion") && args.length < 5)) {
+            System.out.println("Uso: java GeneradorGrafos caminos|componentes|vias cuadricula|disperso|denso|potencia <vértices> <semilla> <salida>");
+            System.out.println("     java GeneradorGrafos distribucion <camiones> <semilla> <salida>");
+            return;
+        }
+
+        String formato = args[0];
+        try {
+            if (formato.equals("distribucion")) {
+                InstanciaDistribucion instancia = capas(Integer.parseInt(args[1]), Long.parseLong(args[2]));
+                instancia.escribir(args[3]);
+                System.out.println("Instancia generada: " + instancia.capacidadesCamiones.length + " camiones.");
+                return;
+            }
+
+            String generador = args[1];
+            int numVertices = Integer.parseInt(args[2]);
+            long semilla = Long.parseLong(args[3]);
+            ListaAristas aristas;
+            switch (formato) {
+                case "caminos":
+                    aristas = generar(generador, numVertices, semilla, true);
+                    escribir(args[4], null, aristas, true);
+                    break;
+                case "componentes":
+                    aristas = generar(generador, numVertices, semilla, false);
+                    escribir(args[4], String.valueOf(numVertices), aristas, false);
+                    break;
+                case "vias":
+                    aristas = generar(generador, numVertices, semilla, false);
+                    escribir(args[4], numVertices + " " + aristas.tamano(), aristas, true);
+                    break;
+                default:
+                    System.err.println("Formato desconocido: " + formato);
+                    return;
+            }
+            System.out.println("Grafo generado: " + numVertices + " vértices, " + aristas.tamano() + " aristas.");
+        } catch (IOException e) {
+            System.err.println("Error al escribir el archivo: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Parámetro inválido: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Genera un grafo con el generador indicado.
+     *
+     * @param generador cuadricula, disperso, denso o potencia
+     * @param numVertices Número de vértices (la cuadrícula usa el mayor cuadrado que no lo supera)
+     * @param semilla Semilla del generador aleatorio
+     * @param dirigido Si las aristas de los grafos no dirigidos se agregan en los dos sentidos
+     * @return Aristas con costos entre 1 y 100 (entre 10 y 100 en la cuadrícula)
+     */
+    static ListaAristas generar(String generador, int numVertices, long semilla, boolean dirigido) {
+        if (numVertices < 1) {
+            throw new IllegalArgumentException("El número de vértices debe ser positivo: " + numVertices);
+        }
+        switch (generador) {
+            case "cuadricula":
+                return cuadricula(numVertices, semilla, dirigido);
+            case "disperso":
+                return disperso(numVertices, semilla);
+            case "denso":
+                return denso(numVertices, semilla);
+            case "potencia":
+                return leyPotencia(numVertices, semilla, dirigido);
+            default:
+                throw new IllegalArgumentException("Generador desconocido: " + generador);
+        }
+    }
+
+    /**
+     * Número aproximado de aristas que generaría el generador, para descartar tamaños
+     * inviables antes de generarlos.
+     */
+    static long aristasEstimadas(String generador, int numVertices) {
+        switch (generador) {
+            case "denso":
+                return (long) (DENSIDAD * numVertices * (numVertices - 1));
+            case "disperso":
+                return (long) GRADO_DISPERSO * numVertices;
+            default:
+                return 4L * numVertices;
+        }
+    }
+
+    private static ListaAristas cuadricula(int numVertices, long semilla, boolean dirigido) {
+        SplittableRandom azar = new SplittableRandom(semilla);
+        int lado = (int) Math.sqrt(numVertices);
+        ListaAristas aristas = new ListaAristas(4 * lado * lado);
+        for (int fila = 0; fila < lado; fila++) {
+            for (int columna = 0; columna < lado; columna++) {
+                int v = fila * lado + columna;
+                if (columna + 1 < lado) {
+                    agregar(aristas, v, v + 1, azar.nextInt(10, 101), dirigido);
+                }
+                if (fila + 1 < lado) {
+                    agregar(aristas, v, v + lado, azar.nextInt(10, 101), dirigido);
+                }
+            }
+        }
+        return aristas;
+    }
+
+    private static ListaAristas disperso(int numVertices, long semilla) {
+        SplittableRandom azar = new SplittableRandom(semilla);
+        int numAristas = GRADO_DISPERSO * numVertices;
+        ListaAristas aristas = new ListaAristas(numAristas);
+        for (int i = 0; i < numAristas && numVertices > 1; i++) {
+            int origen = azar.nextInt(numVertices);
+            int destino = azar.nextInt(numVertices - 1);
+            aristas.agregar(origen, destino >= origen ? destino + 1 : destino, azar.nextInt(1, 101));
+        }
+        return aristas;
+    }
+
+    private static ListaAristas denso(int numVertices, long semilla) {
+        SplittableRandom azar = new SplittableRandom(semilla);
+        ListaAristas aristas = new ListaAristas((int) Math.min(Integer.MAX_VALUE - 8, aristasEstimadas("denso", numVertices)));
+        for (int origen = 0; origen < numVertices; origen++) {
+            for (int destino = 0; destino < numVertices; destino++) {
+                if (origen != destino && azar.nextDouble() < DENSIDAD) {
+                    aristas.agregar(origen, destino, azar.nextInt(1, 101));
+                }
+            }
+        }
+        return aristas;
+    }
+
+    private static ListaAristas leyPotencia(int numVertices, long semilla, boolean dirigido) {
+        SplittableRandom azar = new SplittableRandom(semilla);
+        ListaAristas aristas = new ListaAristas(2 * ENLACES_POTENCIA * numVertices);
+        // Cada arista deja sus dos extremos en esta lista: elegir una posición al azar es elegir
+        // un vértice con probabilidad proporcional a su grado
+        int[] extremos = new int[2 * ENLACES_POTENCIA * numVertices];
+        int numExtremos = 0;
+        int[] elegidos = new int[ENLACES_POTENCIA];
+        for (int v = 1; v < numVertices; v++) {
+            int enlaces = Math.min(ENLACES_POTENCIA, v);
+            int numElegidos = 0;
+            while (numElegidos < enlaces) {
+                int candidato = numExtremos == 0 ? azar.nextInt(v) : extremos[azar.nextInt(numExtremos)];
+                boolean repetido = false;
+                for (int i = 0; i < numElegidos; i++) {
+                    repetido |= elegidos[i] == candidato;
+                }
+                if (!repetido) {
+                    elegidos[numElegidos++] = candidato;
+                }
+            }
+            for (int i = 0; i < numElegidos; i++) {
+                agregar(aristas, v, elegidos[i], azar.nextInt(1, 101), dirigido);
+                extremos[numExtremos++] = v;
+                extremos[numExtremos++] = elegidos[i];
+            }
+        }
+        return aristas;
+    }
+
+    private static void agregar(ListaAristas aristas, int u, int v, int costo, boolean dirigido) {
+        aristas.agregar(u, v, costo);
+        if (dirigido) {
+            aristas.agregar(v, u, costo);
+        }
+    }
+
+    /**
+     * Genera una instancia de distribución de libros en capas: por cada 50 camiones hay una
+     * fábrica y una bodega, y por cada 20 una librería. El 40 % de los camiones va de una
+     * fábrica a una bodega, otro 40 % de una bodega a una librería y el resto de una fábrica
+     * directamente a una librería.
+     *
+     * @param numCamiones Número de camiones
+     * @param semilla Semilla del generador aleatorio
+     * @return Instancia lista para escribir o para construir su red de flujo
+     */
+    static InstanciaDistribucion capas(int numCamiones, long semilla) {
+        if (numCamiones < 1) {
+            throw new IllegalArgumentException("El número de camiones debe ser positivo: " + numCamiones);
+        }
+        SplittableRandom azar = new SplittableRandom(semilla);
+        InstanciaDistribucion instancia = new InstanciaDistribucion();
+        instancia.numFabricas = Math.max(1, numCamiones / 50);
+        instancia.numLibrerias = Math.max(1, numCamiones / 20);
+        int numBodegas = Math.max(1, numCamiones / 50);
+        instancia.capacidadesBodegas = new int[numBodegas];
+        for (int i = 0; i < numBodegas; i++) {
+            instancia.capacidadesBodegas[i] = azar.nextInt(100, 1001);
+        }
+        instancia.capacidadesCamiones = new int[numCamiones];
+        instancia.rutas = new int[numCamiones][2];
+        for (int i = 0; i < numCamiones; i++) {
+            instancia.capacidadesCamiones[i] = azar.nextInt(10, 101);
+            int tipo = azar.nextInt(10);
+            int fabrica = azar.nextInt(instancia.numFabricas);
+            int bodega = azar.nextInt(numBodegas);
+            int libreria = azar.nextInt(instancia.numLibrerias);
+            // Índices internos: las bodegas van después de las fábricas (origen) o de las librerías (destino)
+            if (tipo < 4) {
+                instancia.rutas[i][0] = fabrica;
+                instancia.rutas[i][1] = instancia.numLibrerias + bodega;
+            } else if (tipo < 8) {
+                instancia.rutas[i][0] = instancia.numFabricas + bodega;
+                instancia.rutas[i][1] = libreria;
+            } else {
+                instancia.rutas[i][0] = fabrica;
+                instancia.rutas[i][1] = libreria;
+            }
+        }
+        return instancia;
+    }
+
+    // Escribe una arista por línea, con o sin costo, después de la línea de encabezado si la hay
+    private static void escribir(String archivo, String encabezado, ListaAristas aristas, boolean conCosto) throws IOException {
+        try (BufferedWriter salida = Files.newBufferedWriter(Paths.get(archivo), StandardCharsets.UTF_8)) {
+            StringBuilder linea = new StringBuilder();
+            if (encabezado != null) {
+                salida.write(encabezado);
+                salida.newLine();
+            }
+            for (int i = 0; i < aristas.tamano(); i++) {
+                linea.setLength(0);
+                linea.append(aristas.origenes[i]).append(' ').append(aristas.destinos[i]);
+                if (conCosto) {
+                    linea.append(' ').append(aristas.pesos[i]);
+                }
+                salida.append(linea);
+                salida.newLine();
+            }
+        }
+    }
+
+    /**
+     * Instancia de DistribucionLibros. Las rutas están en índices internos, como las recibe
+     * DistribucionLibros.construirRed.
+     */
+    static class InstanciaDistribucion {
+        int numFabricas;
+        int numLibrerias;
+        int[] capacidadesBodegas;
+        int[] capacidadesCamiones;
+        int[][] rutas;
+
+        GrafoCSR construirRed() {
+            return DistribucionLibros.construirRed(numFabricas, numLibrerias, capacidadesBodegas, capacidadesCamiones, rutas);
+        }
+
+        // Escribe la instancia en el formato de entrada de DistribucionLibros
+        void escribir(String archivo) throws IOException {
+            try (BufferedWriter salida = Files.newBufferedWriter(Paths.get(archivo), StandardCharsets.UTF_8)) {
+                salida.write(numFabricas + " " + numLibrerias + " " + capacidadesBodegas.length + " " + capacidadesCamiones.length);
+                salida.newLine();
+                salida.write(unirConEspacios(capacidadesBodegas));
+                salida.newLine();
+                salida.write(unirConEspacios(capacidadesCamiones));
+                salida.newLine();
+                for (int[] ruta : rutas) {
+                    boolean desdeBodega = ruta[0] >= numFabricas;
+                    boolean haciaBodega = ruta[1] >= numLibrerias;
+                    salida.write((desdeBodega ? ruta[0] - numFabricas : ruta[0]) + " " +
+                            (haciaBodega ? ruta[1] - numLibrerias : ruta[1]) + " " +
+                            (desdeBodega ? 1 : 0) + " " + (haciaBodega ? 1 : 0));
+                    salida.newLine();
+                }
+            }
+        }
+
+        private static String unirConEspacios(int[] valores) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < valores.length; i++) {
+                if (i > 0) {
+                    sb.append(' ');
+                }
+                sb.append(valores[i]);
+            }
+            return sb.toString();
+        }
+    }
+}
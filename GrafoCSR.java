@@ -0,0 +1,227 @@
+import java.util.Arrays;
+
+/**
+ * Grafo dirigido en formato CSR (compressed sparse row) sobre arreglos primitivos.
+ * Las aristas salientes del vértice u ocupan las posiciones
+ * [desplazamientos[u], desplazamientos[u + 1]) de los arreglos destinos y pesos.
+ * La memoria requerida es O(V + E), en lugar de O(V²) de la matriz de adyacencia.
+ *
+ * Opcionalmente mantiene un índice inverso (aristas entrantes de cada vértice) y,
+ * en las redes residuales, el índice del arco emparejado en sentido contrario.
+ */
+public class GrafoCSR {
+    int numVertices;
+    int numArcos;
+    int[] desplazamientos;
+    int[] origenes;
+    int[] destinos;
+    int[] pesos;
+
+    // Índice inverso: las aristas entrantes de v son arcosEntrada[desplazamientosEntrada[v] .. desplazamientosEntrada[v + 1])
+    int[] desplazamientosEntrada;
+    int[] arcosEntrada;
+
+    // Solo en redes residuales: arco en sentido contrario de cada arco
+    int[] pareja;
+    // Solo en redes residuales: arco directo de cada arista de la lista original
+    int[] arcoDeArista;
+
+    private GrafoCSR() {
+    }
+
+    /**
+     * Construye el grafo dirigido con todas las aristas de la lista, conservando
+     * dentro de cada vértice el orden de lectura.
+     *
+     * @param numVertices Número de vértices del grafo
+     * @param aristas Aristas leídas del archivo
+     * @return Grafo en formato CSR
+     */
+    public static GrafoCSR construir(int numVertices, ListaAristas aristas) {
+        return ubicar(numVertices, aristas.origenes, aristas.destinos, aristas.pesos, aristas.tamano, null);
+    }
+
+    /**
+     * Construye el grafo dirigido con la misma semántica que la matriz de adyacencia:
+     * los lazos (origen == destino) se ignoran y si una arista aparece repetida se
+     * conserva el último peso leído.
+     *
+     * @param numVertices Número de vértices del grafo
+     * @param aristas Aristas leídas del archivo
+     * @return Grafo en formato CSR sin aristas repetidas
+     */
+    public static GrafoCSR construirSinRepetidas(int numVertices, ListaAristas aristas) {
+        GrafoCSR grafo = construir(numVertices, aristas);
+
+        int[] ultimaPosicion = new int[numVertices];
+        Arrays.fill(ultimaPosicion, -1);
+        int escritura = 0;
+        int inicioFila = 0;
+        for (int u = 0; u < numVertices; u++) {
+            int finFila = grafo.desplazamientos[u + 1];
+            int inicioCompacto = escritura;
+            for (int a = inicioFila; a < finFila; a++) {
+                int v = grafo.destinos[a];
+                if (v == u) {
+                    continue;
+                }
+                if (ultimaPosicion[v] >= inicioCompacto) {
+                    grafo.pesos[ultimaPosicion[v]] = grafo.pesos[a];
+                } else {
+                    ultimaPosicion[v] = escritura;
+                    grafo.origenes[escritura] = u;
+                    grafo.destinos[escritura] = v;
+                    grafo.pesos[escritura] = grafo.pesos[a];
+                    escritura++;
+                }
+            }
+            inicioFila = finFila;
+            grafo.desplazamientos[u + 1] = escritura;
+        }
+
+        grafo.numArcos = escritura;
+        grafo.origenes = Arrays.copyOf(grafo.origenes, escritura);
+        grafo.destinos = Arrays.copyOf(grafo.destinos, escritura);
+        grafo.pesos = Arrays.copyOf(grafo.pesos, escritura);
+        return grafo;
+    }
+
+    /**
+     * Construye un grafo no dirigido: cada arista se agrega en ambas direcciones.
+     *
+     * @param numVertices Número de vértices del grafo
+     * @param aristas Aristas leídas del archivo
+     * @return Grafo en formato CSR con 2E arcos
+     */
+    public static GrafoCSR construirNoDirigido(int numVertices, ListaAristas aristas) {
+        int n = aristas.tamano;
+        int[] origenes = new int[2 * n];
+        int[] destinos = new int[2 * n];
+        int[] pesos = new int[2 * n];
+        for (int i = 0; i < n; i++) {
+            origenes[2 * i] = aristas.origenes[i];
+            destinos[2 * i] = aristas.destinos[i];
+            pesos[2 * i] = aristas.pesos[i];
+            origenes[2 * i + 1] = aristas.destinos[i];
+            destinos[2 * i + 1] = aristas.origenes[i];
+            pesos[2 * i + 1] = aristas.pesos[i];
+        }
+        return ubicar(numVertices, origenes, destinos, pesos, 2 * n, null);
+    }
+
+    /**
+     * Construye la red residual para flujo máximo: cada arista (u, v, capacidad) genera
+     * el arco directo con esa capacidad y un arco inverso (v, u) con capacidad 0.
+     * El arreglo pareja relaciona cada arco con su arco en sentido contrario y arcoDeArista
+     * da la posición del arco directo de cada arista de la lista.
+     *
+     * @param numVertices Número de nodos de la red
+     * @param aristas Aristas con su capacidad en el peso
+     * @return Red residual en formato CSR
+     */
+    public static GrafoCSR construirResidual(int numVertices, ListaAristas aristas) {
+        int n = aristas.tamano;
+        int[] origenes = new int[2 * n];
+        int[] destinos = new int[2 * n];
+        int[] pesos = new int[2 * n];
+        for (int i = 0; i < n; i++) {
+            origenes[2 * i] = aristas.origenes[i];
+            destinos[2 * i] = aristas.destinos[i];
+            pesos[2 * i] = aristas.pesos[i];
+            origenes[2 * i + 1] = aristas.destinos[i];
+            destinos[2 * i + 1] = aristas.origenes[i];
+        }
+
+        int[] posicion = new int[2 * n];
+        GrafoCSR grafo = ubicar(numVertices, origenes, destinos, pesos, 2 * n, posicion);
+        grafo.pareja = new int[2 * n];
+        grafo.arcoDeArista = new int[n];
+        for (int i = 0; i < n; i++) {
+            grafo.pareja[posicion[2 * i]] = posicion[2 * i + 1];
+            grafo.pareja[posicion[2 * i + 1]] = posicion[2 * i];
+            grafo.arcoDeArista[i] = posicion[2 * i];
+        }
+        return grafo;
+    }
+
+    /**
+     * Devuelve un grafo con la misma estructura y otros pesos. Los arreglos de estructura
+     * se comparten con este grafo, no se copian.
+     *
+     * @param nuevosPesos Peso de cada arco, en el mismo orden que destinos
+     * @return Grafo con los pesos indicados
+     */
+    public GrafoCSR conPesos(int[] nuevosPesos) {
+        if (nuevosPesos.length != numArcos) {
+            throw new IllegalArgumentException("Se esperaban " + numArcos + " pesos y se recibieron " + nuevosPesos.length);
+        }
+        GrafoCSR grafo = new GrafoCSR();
+        grafo.numVertices = numVertices;
+        grafo.numArcos = numArcos;
+        grafo.desplazamientos = desplazamientos;
+        grafo.origenes = origenes;
+        grafo.destinos = destinos;
+        grafo.pesos = nuevosPesos;
+        grafo.desplazamientosEntrada = desplazamientosEntrada;
+        grafo.arcosEntrada = arcosEntrada;
+        grafo.pareja = pareja;
+        grafo.arcoDeArista = arcoDeArista;
+        return grafo;
+    }
+
+    /**
+     * Construye el índice inverso (aristas entrantes de cada vértice) si aún no existe.
+     */
+    public void construirIndiceInverso() {
+        if (arcosEntrada != null) {
+            return;
+        }
+        desplazamientosEntrada = new int[numVertices + 1];
+        for (int a = 0; a < numArcos; a++) {
+            desplazamientosEntrada[destinos[a] + 1]++;
+        }
+        for (int v = 0; v < numVertices; v++) {
+            desplazamientosEntrada[v + 1] += desplazamientosEntrada[v];
+        }
+        arcosEntrada = new int[numArcos];
+        int[] siguiente = Arrays.copyOf(desplazamientosEntrada, numVertices);
+        for (int a = 0; a < numArcos; a++) {
+            arcosEntrada[siguiente[destinos[a]]++] = a;
+        }
+    }
+
+    /**
+     * Ordena las aristas por vértice de origen (ordenamiento por conteo, estable).
+     *
+     * @param posicion Si no es null, recibe la posición final de cada arista de entrada
+     */
+    private static GrafoCSR ubicar(int numVertices, int[] origenes, int[] destinos, int[] pesos,
+                                   int numAristas, int[] posicion) {
+        GrafoCSR grafo = new GrafoCSR();
+        grafo.numVertices = numVertices;
+        grafo.numArcos = numAristas;
+        grafo.desplazamientos = new int[numVertices + 1];
+
+        for (int i = 0; i < numAristas; i++) {
+            grafo.desplazamientos[origenes[i] + 1]++;
+        }
+        for (int u = 0; u < numVertices; u++) {
+            grafo.desplazamientos[u + 1] += grafo.desplazamientos[u];
+        }
+
+        grafo.origenes = new int[numAristas];
+        grafo.destinos = new int[numAristas];
+        grafo.pesos = new int[numAristas];
+        int[] siguiente = Arrays.copyOf(grafo.desplazamientos, numVertices);
+        for (int i = 0; i < numAristas; i++) {
+            int p = siguiente[origenes[i]]++;
+            grafo.origenes[p] = origenes[i];
+            grafo.destinos[p] = destinos[i];
+            grafo.pesos[p] = pesos[i];
+            if (posicion != null) {
+                posicion[i] = p;
+            }
+        }
+        return grafo;
+    }
+}
@@ -0,0 +1,133 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Índice de conectividad en memoria que acepta aristas a medida que llegan. Se apoya en
+ * ConjuntosDisjuntos, por lo que agregar una arista y preguntar si dos vértices están conectados
+ * cuesta O(α(n)) amortizado, y los arreglos crecen solos cuando aparece un vértice nuevo.
+ * Los métodos están sincronizados para que un hilo pueda seguir agregando aristas mientras
+ * otros consultan (find también modifica el arreglo de padres al comprimir caminos).
+ */
+public class IndiceConectividad {
+    private final ConjuntosDisjuntos conjuntos;
+    // Búsquedas y longitud de sus caminos, solo mientras las métricas están activas
+    private long numBusquedas;
+    private long pasosBusqueda;
+
+    public IndiceConectividad(int numVertices) {
+        conjuntos = new ConjuntosDisjuntos(numVertices);
+    }
+
+    /**
+     * Agrega la arista no dirigida u - v.
+     *
+     * @return true si la arista unió dos componentes distintos
+     */
+    public synchronized boolean agregarArista(int u, int v) {
+        validarVertice(u);
+        validarVertice(v);
+        if (Metricas.activas) {
+            medirBusquedas(u, v);
+        }
+        return conjuntos.union(u, v);
+    }
+
+    /**
+     * Asegura que los vértices 0 .. v existan (los nuevos quedan aislados).
+     */
+    public synchronized void agregarVertice(int v) {
+        validarVertice(v);
+        conjuntos.asegurarElemento(v);
+    }
+
+    public synchronized boolean conectados(int u, int v) {
+        validarVertice(u);
+        validarVertice(v);
+        if (Metricas.activas && u < conjuntos.numElementos && v < conjuntos.numElementos) {
+            medirBusquedas(u, v);
+        }
+        return conjuntos.conectados(u, v);
+    }
+
+    public synchronized int numComponentes() {
+        return conjuntos.numConjuntos;
+    }
+
+    public synchronized int numVertices() {
+        return conjuntos.numElementos;
+    }
+
+    /**
+     * Devuelve los componentes actuales, ordenados por su menor vértice y cada uno ordenado,
+     * igual que los imprime ComponentesConectados.
+     */
+    public synchronized List<int[]> instantanea() {
+        int[] raiz = new int[conjuntos.numElementos];
+        boolean medir = Metricas.activas;
+        for (int v = 0; v < raiz.length; v++) {
+            if (medir) {
+                pasosBusqueda += conjuntos.profundidad(v);
+            }
+            raiz[v] = conjuntos.find(v);
+        }
+        if (medir) {
+            numBusquedas += raiz.length;
+        }
+        return agruparPorRaiz(raiz);
+    }
+
+    /**
+     * Suma a las métricas las búsquedas hechas hasta ahora y los saltos que recorrieron.
+     */
+    public synchronized void registrarMetricas() {
+        Metricas.sumar("union_find.busquedas", numBusquedas);
+        Metricas.sumar("union_find.pasos_busqueda", pasosBusqueda);
+    }
+
+    // Cuenta las dos búsquedas de u y v con la longitud de sus caminos antes de comprimirlos
+    private void medirBusquedas(int u, int v) {
+        numBusquedas += 2;
+        pasosBusqueda += conjuntos.profundidad(u) + conjuntos.profundidad(v);
+    }
+
+    private static void validarVertice(int v) {
+        if (v < 0) {
+            throw new IllegalArgumentException("Vértice negativo: " + v);
+        }
+    }
+
+    /**
+     * Agrupa los vértices por la raíz de su conjunto. Los componentes quedan en el mismo orden
+     * que con BFS (por su menor vértice) y cada uno ordenado, sin necesidad de ordenar.
+     *
+     * @param raiz Raíz del conjunto de cada vértice
+     * @return Lista de componentes conectados
+     */
+    static List<int[]> agruparPorRaiz(int[] raiz) {
+        int numVertices = raiz.length;
+        int[] indiceComponente = new int[numVertices];
+        Arrays.fill(indiceComponente, -1);
+        int[] tamanos = new int[numVertices];
+        int numComponentes = 0;
+
+        for (int v = 0; v < numVertices; v++) {
+            if (indiceComponente[raiz[v]] < 0) {
+                indiceComponente[raiz[v]] = numComponentes++;
+            }
+            tamanos[indiceComponente[raiz[v]]]++;
+        }
+
+        List<int[]> componentes = new ArrayList<>(numComponentes);
+        for (int c = 0; c < numComponentes; c++) {
+            componentes.add(new int[tamanos[c]]);
+        }
+        int[] llenos = new int[numComponentes];
+        for (int v = 0; v < numVertices; v++) {
+            int c = indiceComponente[raiz[v]];
+            componentes.get(c)[llenos[c]++] = v;
+        }
+
+        return componentes;
+    }
+}
@@ -0,0 +1,772 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Jerarquía de contracción (Contraction Hierarchies) para consultas de distancia mínima entre
+ * un origen y un destino en pocos microsegundos sobre grafos con pesos no negativos.
+ *
+ * Preprocesamiento: los vértices se contraen de a uno en orden de importancia creciente.
+ * Contraer v agrega un atajo u -> w por cada par de vecinos cuyo camino mínimo pasa por v
+ * (una búsqueda de testigos local decide si hay otro camino igual de corto sin v). La
+ * importancia es la diferencia de aristas (atajos que habría que agregar menos aristas que
+ * se quitan) más el número de vecinos ya contraídos y el nivel del vértice; se recalcula de
+ * forma perezosa al extraer el vértice del montículo, y si creció, el vértice vuelve a la cola.
+ *
+ * Consulta: Dijkstra bidireccional que solo sube en la jerarquía (hacia adelante por las
+ * aristas hacia vértices de mayor rango y hacia atrás por las aristas que llegan desde
+ * vértices de mayor rango), con poda de vértices estancados (stall-on-demand). Cada atajo
+ * recuerda las dos aristas que reemplaza, así que el camino se desempaqueta a la secuencia
+ * real de vértices.
+ *
+ * Formato del archivo (enteros de 32 bits little-endian):
+ * <pre>
+ *   MAGICO  VERSION  numVertices  numAristas  numArriba  numAbajo  tienePotencial
+ *   rango[numVertices]  potencial[numVertices] (solo si tienePotencial = 1)
+ *   origenes[numAristas]  destinos[numAristas]  pesos[numAristas]
+ *   hijoIzquierdo[numAristas]  hijoDerecho[numAristas]
+ *   desplazamientosArriba[numVertices + 1]  arriba[numArriba]
+ *   desplazamientosAbajo[numVertices + 1]  abajo[numAbajo]
+ * </pre>
+ *
+ * La memoria de trabajo de las consultas es de la instancia: cada hilo debe usar la suya
+ * (conMemoriaPropia comparte la jerarquía).
+ */
+public class JerarquiaContraccion {
+    static final int MAGICO = 0x4A434842; // "JCHB"
+    static final int VERSION = 1;
+    private static final int TAMANO_ENCABEZADO = 28;
+
+    static final int INFINITO = Integer.MAX_VALUE;
+    private static final long SIN_DISTANCIA = Long.MAX_VALUE;
+
+    int numVertices;
+    int numAristas;       // Aristas originales y atajos
+    int[] rango;          // Orden de contracción de cada vértice
+    int[] potencial;      // Potenciales de Johnson con los que se reponderó el grafo, o null
+    int[] origenes;
+    int[] destinos;
+    int[] pesos;
+    int[] hijoIzquierdo;  // Primera arista que reemplaza el atajo, -1 en las aristas originales
+    int[] hijoDerecho;    // Segunda arista que reemplaza el atajo, -1 en las aristas originales
+
+    // Aristas v -> w con rango[w] > rango[v], agrupadas por v
+    int[] desplazamientosArriba;
+    int[] arriba;
+    // Aristas w -> v con rango[w] > rango[v], agrupadas por v
+    int[] desplazamientosAbajo;
+    int[] abajo;
+
+    // Vértices distintos asentados por la última consulta (uno asentado en las dos
+    // direcciones cuenta una vez)
+    long verticesAsentados;
+
+    // Memoria de trabajo de las consultas (se crea con la primera consulta)
+    private long[] distanciaAdelante;
+    private long[] distanciaAtras;
+    private int[] previoAdelante;   // Arista por la que se llegó a cada vértice
+    private int[] siguienteAtras;   // Arista por la que cada vértice sigue hacia el destino
+    private int[] epocaAdelante;
+    private int[] epocaAtras;
+    private int epoca;
+    private MonticuloIndexado monticuloAdelante;
+    private MonticuloIndexado monticuloAtras;
+    private int encuentro = -1;     // Vértice más alto del último camino encontrado
+    private int ultimoOrigen;
+    private int ultimoDestino;
+
+    private JerarquiaContraccion() {
+    }
+
+    /**
+     * Devuelve otra instancia que comparte la jerarquía, con su propia memoria de trabajo.
+     */
+    public JerarquiaContraccion conMemoriaPropia() {
+        JerarquiaContraccion copia = new JerarquiaContraccion();
+        copia.numVertices = numVertices;
+        copia.numAristas = numAristas;
+        copia.rango = rango;
+        copia.potencial = potencial;
+        copia.origenes = origenes;
+        copia.destinos = destinos;
+        copia.pesos = pesos;
+        copia.hijoIzquierdo = hijoIzquierdo;
+        copia.hijoDerecho = hijoDerecho;
+        copia.desplazamientosArriba = desplazamientosArriba;
+        copia.arriba = arriba;
+        copia.desplazamientosAbajo = desplazamientosAbajo;
+        copia.abajo = abajo;
+        return copia;
+    }
+
+    /**
+     * Construye la jerarquía contrayendo todos los vértices del grafo.
+     *
+     * @param grafo Grafo disperso con pesos no negativos, sin lazos ni aristas repetidas
+     * @param potencial Potenciales con los que se reponderó el grafo, o null si no se reponderó
+     * @return Jerarquía lista para consultar
+     */
+    public static JerarquiaContraccion construir(GrafoCSR grafo, int[] potencial) {
+        for (int a = 0; a < grafo.numArcos; a++) {
+            if (grafo.pesos[a] < 0) {
+                throw new IllegalArgumentException("Peso negativo en el arco " + grafo.origenes[a] + " -> " + grafo.destinos[a]);
+            }
+        }
+        JerarquiaContraccion jerarquia = new Contraccion(grafo).contraerTodos();
+        jerarquia.potencial = potencial;
+        return jerarquia;
+    }
+
+    public int numAtajos() {
+        int atajos = 0;
+        for (int e = 0; e < numAristas; e++) {
+            if (hijoIzquierdo[e] >= 0) {
+                atajos++;
+            }
+        }
+        return atajos;
+    }
+
+    /**
+     * Distancia mínima de origen a destino.
+     *
+     * @return Distancia en el grafo original, o INFINITO si no hay camino
+     */
+    public int distancia(int origen, int destino) {
+        if (origen < 0 || origen >= numVertices || destino < 0 || destino >= numVertices) {
+            throw new IllegalArgumentException("Vértice fuera de rango: " + origen + " -> " + destino);
+        }
+        verticesAsentados = 0;
+        encuentro = -1;
+        ultimoOrigen = origen;
+        ultimoDestino = destino;
+        if (origen == destino) {
+            encuentro = origen;
+            return 0;
+        }
+        prepararMemoria();
+        if (++epoca == Integer.MAX_VALUE) {
+            Arrays.fill(epocaAdelante, 0);
+            Arrays.fill(epocaAtras, 0);
+            epoca = 1;
+        }
+        MonticuloIndexado adelante = monticuloAdelante;
+        MonticuloIndexado atras = monticuloAtras;
+        adelante.limpiar();
+        atras.limpiar();
+        distanciaAdelante[origen] = 0;
+        previoAdelante[origen] = -1;
+        epocaAdelante[origen] = epoca;
+        distanciaAtras[destino] = 0;
+        siguienteAtras[destino] = -1;
+        epocaAtras[destino] = epoca;
+        adelante.insertarODisminuir(origen, 0);
+        atras.insertarODisminuir(destino, 0);
+
+        long mejor = SIN_DISTANCIA;
+        while (true) {
+            // Cada dirección termina cuando su menor clave ya no puede mejorar el mejor camino
+            boolean sigueAdelante = !adelante.estaVacio() && adelante.minimaClave() < mejor;
+            boolean sigueAtras = !atras.estaVacio() && atras.minimaClave() < mejor;
+            if (!sigueAdelante && !sigueAtras) {
+                break;
+            }
+            if (sigueAdelante && (!sigueAtras || adelante.minimaClave() <= atras.minimaClave())) {
+                int u = adelante.extraerMinimo();
+                if (!atras.fueExtraido(u)) {
+                    verticesAsentados++;
+                }
+                long distanciaU = distanciaAdelante[u];
+                if (epocaAtras[u] == epoca && distanciaU + distanciaAtras[u] < mejor) {
+                    mejor = distanciaU + distanciaAtras[u];
+                    encuentro = u;
+                }
+                if (estancado(u, distanciaU, desplazamientosAbajo, abajo, origenes, distanciaAdelante, epocaAdelante)) {
+                    continue;
+                }
+                for (int i = desplazamientosArriba[u]; i < desplazamientosArriba[u + 1]; i++) {
+                    int e = arriba[i];
+                    int w = destinos[e];
+                    long nueva = distanciaU + pesos[e];
+                    if (epocaAdelante[w] != epoca || nueva < distanciaAdelante[w]) {
+                        distanciaAdelante[w] = nueva;
+                        previoAdelante[w] = e;
+                        epocaAdelante[w] = epoca;
+                        adelante.insertarODisminuir(w, nueva);
+                    }
+                }
+            } else {
+                int u = atras.extraerMinimo();
+                if (!adelante.fueExtraido(u)) {
+                    verticesAsentados++;
+                }
+                long distanciaU = distanciaAtras[u];
+                if (epocaAdelante[u] == epoca && distanciaU + distanciaAdelante[u] < mejor) {
+                    mejor = distanciaU + distanciaAdelante[u];
+                    encuentro = u;
+                }
+                if (estancado(u, distanciaU, desplazamientosArriba, arriba, destinos, distanciaAtras, epocaAtras)) {
+                    continue;
+                }
+                for (int i = desplazamientosAbajo[u]; i < desplazamientosAbajo[u + 1]; i++) {
+                    int e = abajo[i];
+                    int w = origenes[e];
+                    long nueva = distanciaU + pesos[e];
+                    if (epocaAtras[w] != epoca || nueva < distanciaAtras[w]) {
+                        distanciaAtras[w] = nueva;
+                        siguienteAtras[w] = e;
+                        epocaAtras[w] = epoca;
+                        atras.insertarODisminuir(w, nueva);
+                    }
+                }
+            }
+        }
+
+        if (mejor == SIN_DISTANCIA) {
+            encuentro = -1;
+            return INFINITO;
+        }
+        if (potencial != null) {
+            mejor = mejor - potencial[origen] + potencial[destino];
+        }
+        return (int) mejor;
+    }
+
+    /**
+     * Un vértice está estancado si algún vecino de mayor rango ya alcanzado ofrece, bajando
+     * por una arista, un camino más corto que su distancia actual: entonces su distancia no es
+     * la mínima y no tiene sentido relajar sus aristas.
+     */
+    private boolean estancado(int u, long distanciaU, int[] desplazamientos, int[] aristas, int[] extremos,
+                              long[] distancias, int[] epocas) {
+        for (int i = desplazamientos[u]; i < desplazamientos[u + 1]; i++) {
+            int e = aristas[i];
+            int x = extremos[e];
+            if (epocas[x] == epoca && distancias[x] + pesos[e] < distanciaU) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Camino mínimo de origen a destino como secuencia de vértices del grafo original, con los
+     * atajos desempaquetados.
+     *
+     * @return Vértices del camino, desde el origen hasta el destino, o null si no hay camino
+     */
+    public int[] camino(int origen, int destino) {
+        distancia(origen, destino);
+        return ultimoCamino();
+    }
+
+    /**
+     * Desempaqueta el camino de la última consulta de distancia.
+     *
+     * @return Vértices del camino, desde el origen hasta el destino, o null si no había camino
+     */
+    public int[] ultimoCamino() {
+        if (encuentro < 0) {
+            return null;
+        }
+        if (ultimoOrigen == ultimoDestino) {
+            return new int[] {ultimoOrigen};
+        }
+        int origen = ultimoOrigen;
+        int destino = ultimoDestino;
+
+        // Aristas de la jerarquía: subida desde el origen hasta el encuentro y bajada hasta el destino
+        int[] subida = new int[16];
+        int numSubida = 0;
+        for (int v = encuentro; v != origen; v = origenes[previoAdelante[v]]) {
+            if (numSubida == subida.length) {
+                subida = Arrays.copyOf(subida, numSubida * 2);
+            }
+            subida[numSubida++] = previoAdelante[v];
+        }
+        int[] bajada = new int[16];
+        int numBajada = 0;
+        for (int v = encuentro; v != destino; v = destinos[siguienteAtras[v]]) {
+            if (numBajada == bajada.length) {
+                bajada = Arrays.copyOf(bajada, numBajada * 2);
+            }
+            bajada[numBajada++] = siguienteAtras[v];
+        }
+
+        // Desempaquetar con una pila: la arista de más arriba es la siguiente del camino
+        int[] pila = new int[Math.max(16, numSubida + numBajada)];
+        int tamanoPila = 0;
+        for (int i = numBajada - 1; i >= 0; i--) {
+            pila[tamanoPila++] = bajada[i];
+        }
+        for (int i = 0; i < numSubida; i++) {
+            pila[tamanoPila++] = subida[i];
+        }
+
+        int[] vertices = new int[16];
+        int numVerticesCamino = 0;
+        vertices[numVerticesCamino++] = origen;
+        while (tamanoPila > 0) {
+            int e = pila[--tamanoPila];
+            if (hijoIzquierdo[e] < 0) {
+                if (numVerticesCamino == vertices.length) {
+                    vertices = Arrays.copyOf(vertices, numVerticesCamino * 2);
+                }
+                vertices[numVerticesCamino++] = destinos[e];
+            } else {
+                if (tamanoPila + 2 > pila.length) {
+                    pila = Arrays.copyOf(pila, pila.length * 2);
+                }
+                pila[tamanoPila++] = hijoDerecho[e];
+                pila[tamanoPila++] = hijoIzquierdo[e];
+            }
+        }
+        return Arrays.copyOf(vertices, numVerticesCamino);
+    }
+
+    private void prepararMemoria() {
+        if (distanciaAdelante != null) {
+            return;
+        }
+        distanciaAdelante = new long[numVertices];
+        distanciaAtras = new long[numVertices];
+        previoAdelante = new int[numVertices];
+        siguienteAtras = new int[numVertices];
+        epocaAdelante = new int[numVertices];
+        epocaAtras = new int[numVertices];
+        monticuloAdelante = new MonticuloIndexado(numVertices);
+        monticuloAtras = new MonticuloIndexado(numVertices);
+    }
+
+    /**
+     * Escribe la jerarquía en formato binario.
+     *
+     * @param archivo Ruta del archivo de salida
+     */
+    public void escribir(String archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(Paths.get(archivo), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer encabezado = ByteBuffer.allocate(TAMANO_ENCABEZADO).order(ByteOrder.LITTLE_ENDIAN);
+            encabezado.putInt(MAGICO).putInt(VERSION).putInt(numVertices).putInt(numAristas)
+                    .putInt(arriba.length).putInt(abajo.length).putInt(potencial != null ? 1 : 0);
+            encabezado.flip();
+            ArchivoGrafoBinario.escribirTodo(canal, encabezado);
+
+            ByteBuffer bloque = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            ArchivoGrafoBinario.escribirArreglo(canal, bloque, rango, numVertices);
+            if (potencial != null) {
+                ArchivoGrafoBinario.escribirArreglo(canal, bloque, potencial, numVertices);
+            }
+            for (int[] arreglo : new int[][] {origenes, destinos, pesos, hijoIzquierdo, hijoDerecho}) {
+                ArchivoGrafoBinario.escribirArreglo(canal, bloque, arreglo, numAristas);
+            }
+            ArchivoGrafoBinario.escribirArreglo(canal, bloque, desplazamientosArriba, numVertices + 1);
+            ArchivoGrafoBinario.escribirArreglo(canal, bloque, arriba, arriba.length);
+            ArchivoGrafoBinario.escribirArreglo(canal, bloque, desplazamientosAbajo, numVertices + 1);
+            ArchivoGrafoBinario.escribirArreglo(canal, bloque, abajo, abajo.length);
+        }
+    }
+
+    /**
+     * Carga una jerarquía escrita con escribir.
+     *
+     * @param archivo Ruta del archivo
+     * @return Jerarquía lista para consultar
+     * @throws IOException si el archivo no tiene el formato o la versión esperados
+     */
+    public static JerarquiaContraccion leer(String archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(Paths.get(archivo), StandardOpenOption.READ)) {
+            if (canal.size() < TAMANO_ENCABEZADO) {
+                throw new IOException("El archivo no está en formato de jerarquía de contracción: " + archivo);
+            }
+            ByteBuffer encabezado = canal.map(FileChannel.MapMode.READ_ONLY, 0, TAMANO_ENCABEZADO)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (encabezado.getInt(0) != MAGICO) {
+                throw new IOException("El archivo no está en formato de jerarquía de contracción: " + archivo);
+            }
+            if (encabezado.getInt(4) != VERSION) {
+                throw new IOException("Versión de formato no soportada: " + encabezado.getInt(4));
+            }
+            JerarquiaContraccion jerarquia = new JerarquiaContraccion();
+            int n = encabezado.getInt(8);
+            int m = encabezado.getInt(12);
+            int numArriba = encabezado.getInt(16);
+            int numAbajo = encabezado.getInt(20);
+            boolean tienePotencial = encabezado.getInt(24) == 1;
+            long esperado = TAMANO_ENCABEZADO + 4L * ((tienePotencial ? 2L : 1L) * n + 5L * m
+                    + 2L * (n + 1) + numArriba + numAbajo);
+            if (n < 0 || m < 0 || numArriba < 0 || numAbajo < 0 || canal.size() != esperado) {
+                throw new IOException("Tamaño de archivo inconsistente con el encabezado: " + archivo);
+            }
+
+            jerarquia.numVertices = n;
+            jerarquia.numAristas = m;
+            long posicion = TAMANO_ENCABEZADO;
+            jerarquia.rango = new int[n];
+            ArchivoGrafoBinario.leerArreglo(canal, posicion, jerarquia.rango, n);
+            posicion += 4L * n;
+            if (tienePotencial) {
+                jerarquia.potencial = new int[n];
+                ArchivoGrafoBinario.leerArreglo(canal, posicion, jerarquia.potencial, n);
+                posicion += 4L * n;
+            }
+            int[][] aristas = new int[5][m];
+            for (int[] arreglo : aristas) {
+                ArchivoGrafoBinario.leerArreglo(canal, posicion, arreglo, m);
+                posicion += 4L * m;
+            }
+            jerarquia.origenes = aristas[0];
+            jerarquia.destinos = aristas[1];
+            jerarquia.pesos = aristas[2];
+            jerarquia.hijoIzquierdo = aristas[3];
+            jerarquia.hijoDerecho = aristas[4];
+            jerarquia.desplazamientosArriba = new int[n + 1];
+            ArchivoGrafoBinario.leerArreglo(canal, posicion, jerarquia.desplazamientosArriba, n + 1);
+            posicion += 4L * (n + 1);
+            jerarquia.arriba = new int[numArriba];
+            ArchivoGrafoBinario.leerArreglo(canal, posicion, jerarquia.arriba, numArriba);
+            posicion += 4L * numArriba;
+            jerarquia.desplazamientosAbajo = new int[n + 1];
+            ArchivoGrafoBinario.leerArreglo(canal, posicion, jerarquia.desplazamientosAbajo, n + 1);
+            posicion += 4L * (n + 1);
+            jerarquia.abajo = new int[numAbajo];
+            ArchivoGrafoBinario.leerArreglo(canal, posicion, jerarquia.abajo, numAbajo);
+
+            jerarquia.validar(archivo);
+            return jerarquia;
+        }
+    }
+
+    // Revisa que los índices del archivo estén en rango, para no fallar más tarde en una consulta
+    private void validar(String archivo) throws IOException {
+        for (int e = 0; e < numAristas; e++) {
+            if (origenes[e] < 0 || origenes[e] >= numVertices || destinos[e] < 0 || destinos[e] >= numVertices
+                    || hijoIzquierdo[e] >= e || hijoDerecho[e] >= e || (hijoIzquierdo[e] < 0) != (hijoDerecho[e] < 0)) {
+                throw new IOException("Arista " + e + " inválida en la jerarquía: " + archivo);
+            }
+        }
+        for (int[][] lista : new int[][][] {{desplazamientosArriba, arriba}, {desplazamientosAbajo, abajo}}) {
+            int[] desplazamientos = lista[0];
+            if (desplazamientos[0] != 0 || desplazamientos[numVertices] != lista[1].length) {
+                throw new IOException("Desplazamientos inválidos en la jerarquía: " + archivo);
+            }
+            for (int v = 0; v < numVertices; v++) {
+                if (desplazamientos[v + 1] < desplazamientos[v]) {
+                    throw new IOException("Desplazamientos inválidos en la jerarquía: " + archivo);
+                }
+            }
+            for (int e : lista[1]) {
+                if (e < 0 || e >= numAristas) {
+                    throw new IOException("Arista fuera de rango en la jerarquía: " + archivo);
+                }
+            }
+        }
+    }
+
+    /**
+     * Estado del preprocesamiento: el grafo que queda por contraer, con listas de aristas
+     * salientes y entrantes que se modifican al agregar atajos y al quitar vértices.
+     */
+    static class Contraccion {
+        // Límites de la búsqueda de testigos (al estimar la importancia y al contraer)
+        private static final int LIMITE_ASENTADOS_ESTIMACION = 30;
+        private static final int LIMITE_ASENTADOS_CONTRACCION = 500;
+
+        int numVertices;
+        int numAristas;
+        int[] origenes;
+        int[] destinos;
+        int[] pesos;
+        int[] hijoIzquierdo;
+        int[] hijoDerecho;
+
+        int[][] salientes;
+        int[] numSalientes;
+        int[][] entrantes;
+        int[] numEntrantes;
+
+        boolean[] contraido;
+        int[] vecinosContraidos;
+        int[] nivel;
+        int[] rango;
+
+        // Aristas que quedan en la jerarquía, guardadas al contraer cada vértice
+        int[][] arriba;
+        int[][] abajo;
+
+        // Búsqueda de testigos
+        long[] distanciaTestigo;
+        int[] epocaTestigo;
+        int epoca;
+        int[] objetivo;
+        int epocaObjetivo;
+        MonticuloIndexado monticuloTestigo;
+
+        Contraccion(GrafoCSR grafo) {
+            numVertices = grafo.numVertices;
+            int capacidad = Math.max(16, 2 * grafo.numArcos);
+            origenes = Arrays.copyOf(grafo.origenes, capacidad);
+            destinos = Arrays.copyOf(grafo.destinos, capacidad);
+            pesos = Arrays.copyOf(grafo.pesos, capacidad);
+            hijoIzquierdo = new int[capacidad];
+            hijoDerecho = new int[capacidad];
+            Arrays.fill(hijoIzquierdo, -1);
+            Arrays.fill(hijoDerecho, -1);
+            numAristas = grafo.numArcos;
+
+            salientes = new int[numVertices][];
+            numSalientes = new int[numVertices];
+            entrantes = new int[numVertices][];
+            numEntrantes = new int[numVertices];
+            for (int e = 0; e < numAristas; e++) {
+                agregar(salientes, numSalientes, origenes[e], e);
+                agregar(entrantes, numEntrantes, destinos[e], e);
+            }
+
+            contraido = new boolean[numVertices];
+            vecinosContraidos = new int[numVertices];
+            nivel = new int[numVertices];
+            rango = new int[numVertices];
+            arriba = new int[numVertices][];
+            abajo = new int[numVertices][];
+            distanciaTestigo = new long[numVertices];
+            epocaTestigo = new int[numVertices];
+            objetivo = new int[numVertices];
+            monticuloTestigo = new MonticuloIndexado(numVertices);
+        }
+
+        JerarquiaContraccion contraerTodos() {
+            MonticuloIndexado cola = new MonticuloIndexado(numVertices);
+            for (int v = 0; v < numVertices; v++) {
+                cola.insertarODisminuir(v, importancia(v));
+            }
+
+            int siguienteRango = 0;
+            while (!cola.estaVacio()) {
+                int v = cola.extraerMinimo();
+                // Actualización perezosa: si su importancia creció, vuelve a la cola
+                long actual = importancia(v);
+                if (!cola.estaVacio() && actual > cola.minimaClave()) {
+                    cola.insertarODisminuir(v, actual);
+                    continue;
+                }
+                rango[v] = siguienteRango++;
+                contraer(v);
+
+                // Los vecinos suman un vecino contraído y quizás un nivel; su importancia se
+                // recalcula de forma perezosa cuando se extraen
+                epocaObjetivo++;
+                for (int[] lista : new int[][] {arriba[v], abajo[v]}) {
+                    for (int e : lista) {
+                        int x = origenes[e] == v ? destinos[e] : origenes[e];
+                        if (objetivo[x] != epocaObjetivo) {
+                            objetivo[x] = epocaObjetivo;
+                            vecinosContraidos[x]++;
+                            nivel[x] = Math.max(nivel[x], nivel[v] + 1);
+                        }
+                    }
+                }
+            }
+            return armarJerarquia();
+        }
+
+        private long importancia(int v) {
+            int atajos = atajosNecesarios(v, false, LIMITE_ASENTADOS_ESTIMACION);
+            int quitadas = numSalientes[v] + numEntrantes[v];
+            return 2L * (atajos - quitadas) + vecinosContraidos[v] + nivel[v];
+        }
+
+        private void contraer(int v) {
+            atajosNecesarios(v, true, LIMITE_ASENTADOS_CONTRACCION);
+            contraido[v] = true;
+            arriba[v] = Arrays.copyOf(salientes[v] == null ? new int[0] : salientes[v], numSalientes[v]);
+            abajo[v] = Arrays.copyOf(entrantes[v] == null ? new int[0] : entrantes[v], numEntrantes[v]);
+            for (int e : arriba[v]) {
+                quitar(entrantes, numEntrantes, destinos[e], e);
+            }
+            for (int e : abajo[v]) {
+                quitar(salientes, numSalientes, origenes[e], e);
+            }
+            salientes[v] = null;
+            entrantes[v] = null;
+            numSalientes[v] = 0;
+            numEntrantes[v] = 0;
+        }
+
+        /**
+         * Cuenta (y con agregar, inserta) los atajos u -> w necesarios al contraer v: uno por
+         * cada arista entrante u -> v y saliente v -> w tales que la búsqueda de testigos
+         * desde u sin pasar por v no encuentra un camino a w de largo a lo sumo el que pasa
+         * por v. Si la búsqueda se corta por el límite, se agrega el atajo por las dudas.
+         */
+        private int atajosNecesarios(int v, boolean agregar, int limiteAsentados) {
+            int atajos = 0;
+            for (int i = 0; i < numEntrantes[v]; i++) {
+                int e1 = entrantes[v][i];
+                int u = origenes[e1];
+                long maximo = -1;
+                for (int j = 0; j < numSalientes[v]; j++) {
+                    int e2 = salientes[v][j];
+                    if (destinos[e2] != u) {
+                        maximo = Math.max(maximo, (long) pesos[e1] + pesos[e2]);
+                    }
+                }
+                if (maximo < 0) {
+                    continue;
+                }
+                // Los destinos de las aristas salientes de v son los objetivos de la búsqueda
+                epocaObjetivo++;
+                int objetivos = 0;
+                for (int j = 0; j < numSalientes[v]; j++) {
+                    int w = destinos[salientes[v][j]];
+                    if (w != u && objetivo[w] != epocaObjetivo) {
+                        objetivo[w] = epocaObjetivo;
+                        objetivos++;
+                    }
+                }
+                buscarTestigos(u, v, maximo, objetivos, limiteAsentados);
+                for (int j = 0; j < numSalientes[v]; j++) {
+                    int e2 = salientes[v][j];
+                    int w = destinos[e2];
+                    long porV = (long) pesos[e1] + pesos[e2];
+                    if (w == u || (epocaTestigo[w] == epoca && distanciaTestigo[w] <= porV)) {
+                        continue;
+                    }
+                    atajos++;
+                    if (agregar) {
+                        agregarAtajo(u, w, porV, e1, e2);
+                    }
+                }
+            }
+            return atajos;
+        }
+
+        // Dijkstra local desde u que no pasa por v; se detiene al asentar todos los objetivos o
+        // al superar el máximo o el límite
+        private void buscarTestigos(int u, int v, long maximo, int objetivos, int limiteAsentados) {
+            epoca++;
+            MonticuloIndexado monticulo = monticuloTestigo;
+            monticulo.limpiar();
+            distanciaTestigo[u] = 0;
+            epocaTestigo[u] = epoca;
+            monticulo.insertarODisminuir(u, 0);
+            int asentados = 0;
+            while (!monticulo.estaVacio() && asentados < limiteAsentados) {
+                if (monticulo.minimaClave() > maximo) {
+                    break;
+                }
+                int x = monticulo.extraerMinimo();
+                asentados++;
+                if (objetivo[x] == epocaObjetivo && --objetivos == 0) {
+                    break;
+                }
+                long distanciaX = distanciaTestigo[x];
+                for (int j = 0; j < numSalientes[x]; j++) {
+                    int e = salientes[x][j];
+                    int y = destinos[e];
+                    if (y == v) {
+                        continue;
+                    }
+                    long nueva = distanciaX + pesos[e];
+                    if (epocaTestigo[y] != epoca || nueva < distanciaTestigo[y]) {
+                        distanciaTestigo[y] = nueva;
+                        epocaTestigo[y] = epoca;
+                        monticulo.insertarODisminuir(y, nueva);
+                    }
+                }
+            }
+        }
+
+        private void agregarAtajo(int u, int w, long peso, int e1, int e2) {
+            if (peso > Integer.MAX_VALUE) {
+                throw new IllegalStateException("El peso del atajo " + u + " -> " + w + " no cabe en un int");
+            }
+            // Si ya hay una arista u -> w, el atajo la reemplaza solo si es más corto
+            int existente = -1;
+            for (int j = 0; j < numSalientes[u]; j++) {
+                if (destinos[salientes[u][j]] == w) {
+                    existente = j;
+                    break;
+                }
+            }
+            if (existente >= 0 && pesos[salientes[u][existente]] <= peso) {
+                return;
+            }
+
+            if (numAristas == origenes.length) {
+                int nuevaCapacidad = origenes.length * 2;
+                origenes = Arrays.copyOf(origenes, nuevaCapacidad);
+                destinos = Arrays.copyOf(destinos, nuevaCapacidad);
+                pesos = Arrays.copyOf(pesos, nuevaCapacidad);
+                hijoIzquierdo = Arrays.copyOf(hijoIzquierdo, nuevaCapacidad);
+                hijoDerecho = Arrays.copyOf(hijoDerecho, nuevaCapacidad);
+            }
+            int e = numAristas++;
+            origenes[e] = u;
+            destinos[e] = w;
+            pesos[e] = (int) peso;
+            hijoIzquierdo[e] = e1;
+            hijoDerecho[e] = e2;
+
+            if (existente >= 0) {
+                int anterior = salientes[u][existente];
+                salientes[u][existente] = e;
+                quitar(entrantes, numEntrantes, w, anterior);
+            } else {
+                agregar(salientes, numSalientes, u, e);
+            }
+            agregar(entrantes, numEntrantes, w, e);
+        }
+
+        private static void agregar(int[][] listas, int[] tamanos, int v, int e) {
+            if (listas[v] == null) {
+                listas[v] = new int[4];
+            } else if (tamanos[v] == listas[v].length) {
+                listas[v] = Arrays.copyOf(listas[v], tamanos[v] * 2);
+            }
+            listas[v][tamanos[v]++] = e;
+        }
+
+        private static void quitar(int[][] listas, int[] tamanos, int v, int e) {
+            int[] lista = listas[v];
+            for (int j = 0; j < tamanos[v]; j++) {
+                if (lista[j] == e) {
+                    lista[j] = lista[--tamanos[v]];
+                    return;
+                }
+            }
+        }
+
+        private JerarquiaContraccion armarJerarquia() {
+            JerarquiaContraccion jerarquia = new JerarquiaContraccion();
+            jerarquia.numVertices = numVertices;
+            jerarquia.numAristas = numAristas;
+            jerarquia.rango = rango;
+            jerarquia.origenes = Arrays.copyOf(origenes, numAristas);
+            jerarquia.destinos = Arrays.copyOf(destinos, numAristas);
+            jerarquia.pesos = Arrays.copyOf(pesos, numAristas);
+            jerarquia.hijoIzquierdo = Arrays.copyOf(hijoIzquierdo, numAristas);
+            jerarquia.hijoDerecho = Arrays.copyOf(hijoDerecho, numAristas);
+            jerarquia.desplazamientosArriba = new int[numVertices + 1];
+            jerarquia.arriba = aplanar(arriba, jerarquia.desplazamientosArriba);
+            jerarquia.desplazamientosAbajo = new int[numVertices + 1];
+            jerarquia.abajo = aplanar(abajo, jerarquia.desplazamientosAbajo);
+            return jerarquia;
+        }
+
+        private static int[] aplanar(int[][] listas, int[] desplazamientos) {
+            for (int v = 0; v < listas.length; v++) {
+                desplazamientos[v + 1] = desplazamientos[v] + listas[v].length;
+            }
+            int[] plano = new int[desplazamientos[listas.length]];
+            for (int v = 0; v < listas.length; v++) {
+                System.arraycopy(listas[v], 0, plano, desplazamientos[v], listas[v].length);
+            }
+            return plano;
+        }
+    }
+}
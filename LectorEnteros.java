@@ -0,0 +1,336 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Lector de archivos de texto con enteros ASCII separados por espacios, compartido por los
+ * cargadores de los cuatro programas. El archivo se mapea en memoria (FileChannel.map) por
+ * ventanas y los enteros se interpretan directamente desde los bytes, sin crear Strings,
+ * arreglos ni expresiones regulares por línea.
+ *
+ * Para listas de aristas grandes, {@link #leerAristas} divide el archivo en tramos que se
+ * interpretan en paralelo.
+ */
+public class LectorEnteros implements AutoCloseable {
+    // Tamaño de la ventana mapeada; el archivo puede ser más grande que 2 GB
+    private static final long TAMANO_VENTANA = 1L << 28;
+
+    // Margen al final de la ventana: ningún entero válido ocupa tantos bytes
+    private static final int MARGEN = 64;
+
+    private final FileChannel canal;
+    private final long tamanoArchivo;
+    private final long finLectura;
+    private MappedByteBuffer ventana;
+    private long inicioVentana;
+    private int posicion;
+    private String tokenInvalido;  // primer token no numérico de la última línea, o null
+
+    public LectorEnteros(String archivo) throws IOException {
+        this(archivo, 0, -1);
+    }
+
+    /**
+     * Abre el archivo para leer solo los bytes [desde, hasta); hasta = -1 lee hasta el final.
+     */
+    private LectorEnteros(String archivo, long desde, long hasta) throws IOException {
+        canal = FileChannel.open(Paths.get(archivo), StandardOpenOption.READ);
+        tamanoArchivo = canal.size();
+        finLectura = hasta < 0 ? tamanoArchivo : Math.min(hasta, tamanoArchivo);
+        mapear(Math.min(desde, finLectura));
+    }
+
+    private void mapear(long desde) throws IOException {
+        inicioVentana = desde;
+        ventana = canal.map(FileChannel.MapMode.READ_ONLY, desde, Math.min(TAMANO_VENTANA, tamanoArchivo - desde));
+        posicion = 0;
+    }
+
+    /**
+     * Garantiza que desde la posición actual quede al menos MARGEN bytes mapeados, salvo
+     * que se esté cerca del final del archivo.
+     */
+    private void asegurarMargen() throws IOException {
+        if (ventana.limit() - posicion < MARGEN && inicioVentana + ventana.limit() < tamanoArchivo) {
+            mapear(inicioVentana + posicion);
+        }
+    }
+
+    /**
+     * Posición absoluta en el archivo del próximo byte por leer.
+     */
+    public long posicion() {
+        return inicioVentana + posicion;
+    }
+
+    public boolean finDeArchivo() {
+        return posicion() >= finLectura;
+    }
+
+    /**
+     * Lee los enteros de la siguiente línea. Si la línea tiene algún token que no es un
+     * entero, se lee hasta el final y se devuelve -2 - n, donde n es su número de tokens:
+     * nunca coincide con una cantidad esperada, de modo que quien ignora las líneas con otro
+     * número de columnas la ignora, y quien necesita la línea puede lanzar errorDeLinea.
+     *
+     * @param destino Arreglo donde se guardan los enteros; si la línea tiene más enteros
+     *                que el largo del arreglo, los sobrantes se cuentan pero no se guardan
+     * @return Cantidad de enteros de la línea, -2 - n si la línea tiene n tokens y alguno no
+     *         es un entero, o -1 si no quedan líneas
+     * @throws NumberFormatException si un entero está fuera del rango de int
+     */
+    public int leerLinea(int[] destino) throws IOException {
+        if (finDeArchivo()) {
+            return -1;
+        }
+
+        tokenInvalido = null;
+        int cantidad = 0;
+        while (true) {
+            asegurarMargen();
+            byte b = finDeArchivo() ? (byte) '\n' : ventana.get(posicion);
+            if (b == '\n') {
+                if (!finDeArchivo()) {
+                    posicion++;
+                }
+                return tokenInvalido == null ? cantidad : -2 - cantidad;
+            }
+            if (b == ' ' || b == '\t' || b == '\r' || b == '\f') {
+                posicion++;
+                continue;
+            }
+
+            int valor = leerEntero();
+            if (tokenInvalido != null) {
+                saltarToken();
+            } else if (cantidad < destino.length) {
+                destino[cantidad] = valor;
+            }
+            cantidad++;
+        }
+    }
+
+    /**
+     * Error para la última línea leída cuando leerLinea devolvió -2 - n, con el primer
+     * token que no es un entero.
+     */
+    public NumberFormatException errorDeLinea() {
+        return new NumberFormatException("For input string: \"" + tokenInvalido + "\"");
+    }
+
+    /**
+     * Indica si el resultado de leerLinea corresponde a una línea con el número de tokens
+     * esperado pero con alguno que no es un entero, es decir, un error de formato.
+     *
+     * @param cantidad Valor devuelto por leerLinea
+     * @param columnas Número de tokens esperado por línea
+     */
+    static boolean lineaInvalida(int cantidad, int columnas) {
+        return cantidad == -2 - columnas;
+    }
+
+    /**
+     * Lee la siguiente línea exigiendo al menos la cantidad de enteros indicada.
+     *
+     * @param destino Arreglo donde se guardan los enteros (de largo al menos cantidad)
+     * @param cantidad Cantidad mínima de enteros que debe tener la línea
+     * @return Cantidad de enteros de la línea (puede ser mayor que cantidad)
+     * @throws NumberFormatException si el archivo terminó o la línea tiene menos enteros
+     */
+    public int leerLineaCompleta(int[] destino, int cantidad) throws IOException {
+        int leidos = leerLinea(destino);
+        if (leidos < -1) {
+            throw errorDeLinea();
+        }
+        if (leidos < 0) {
+            throw new NumberFormatException("El archivo terminó antes de lo esperado");
+        }
+        if (leidos < cantidad) {
+            throw new NumberFormatException("Se esperaban " + cantidad + " enteros y la línea tiene " + leidos);
+        }
+        return leidos;
+    }
+
+    private int leerEntero() {
+        int inicio = posicion;
+        int limite = (int) Math.min(ventana.limit(), finLectura - inicioVentana);
+        boolean negativo = false;
+        byte b = ventana.get(posicion);
+        if (b == '-' || b == '+') {
+            negativo = b == '-';
+            posicion++;
+        }
+
+        long valor = 0;
+        int digitos = 0;
+        while (posicion < limite) {
+            b = ventana.get(posicion);
+            if (b >= '0' && b <= '9') {
+                valor = valor * 10 + (b - '0');
+                digitos++;
+                posicion++;
+                if (valor > 2147483648L) {
+                    throw new NumberFormatException("Entero fuera de rango: " + token(inicio, limite));
+                }
+            } else if (b == ' ' || b == '\t' || b == '\r' || b == '\n' || b == '\f') {
+                break;
+            } else {
+                digitos = 0;
+                break;
+            }
+        }
+
+        if (digitos == 0) {
+            // No es un entero: se anota y la línea se descarta en leerLinea
+            if (tokenInvalido == null) {
+                tokenInvalido = token(inicio, limite);
+            }
+            return 0;
+        }
+        if (!negativo && valor > Integer.MAX_VALUE) {
+            throw new NumberFormatException("For input string: \"" + token(inicio, limite) + "\"");
+        }
+        return (int) (negativo ? -valor : valor);
+    }
+
+    // Avanza hasta el siguiente espacio o fin de línea, aunque el token cruce la ventana
+    private void saltarToken() throws IOException {
+        while (true) {
+            asegurarMargen();
+            if (finDeArchivo()) {
+                return;
+            }
+            byte b = ventana.get(posicion);
+            if (b == ' ' || b == '\t' || b == '\r' || b == '\n' || b == '\f') {
+                return;
+            }
+            posicion++;
+        }
+    }
+
+    // Texto del token que empieza en inicio, solo para los mensajes de error
+    private String token(int inicio, int limite) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = inicio; i < limite && sb.length() < MARGEN; i++) {
+            char c = (char) ventana.get(i);
+            if (Character.isWhitespace(c)) break;
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+
+    /**
+     * Lee una lista de aristas desde el byte indicado hasta el final del archivo, una por
+     * línea. Las líneas que no tienen exactamente el número de columnas pedido se ignoran,
+     * aunque contengan texto; una línea con ese número de columnas y un token que no es un
+     * entero es un error de formato.
+     * Con más de un hilo el archivo se divide en tramos que empiezan al inicio de una línea
+     * y se interpretan en paralelo; las aristas conservan el orden del archivo.
+     *
+     * @param archivo Ruta del archivo
+     * @param desde Byte donde empiezan las aristas (por ejemplo, después del encabezado)
+     * @param columnas 3 para origen, destino y peso; 2 para origen y destino (peso 1)
+     * @param numHilos Número de tramos a interpretar en paralelo
+     * @return Lista de aristas en el orden del archivo
+     */
+    public static ListaAristas leerAristas(String archivo, long desde, int columnas, int numHilos) throws IOException {
+        long tamano;
+        try (FileChannel canal = FileChannel.open(Paths.get(archivo), StandardOpenOption.READ)) {
+            tamano = canal.size();
+        }
+
+        // Tramos de al menos 1 MB; cada corte se corre hasta el siguiente inicio de línea
+        int numTramos = (int) Math.max(1, Math.min(numHilos, (tamano - desde) >> 20));
+        long[] cortes = new long[numTramos + 1];
+        cortes[0] = desde;
+        cortes[numTramos] = tamano;
+        try (LectorEnteros lector = new LectorEnteros(archivo)) {
+            for (int t = 1; t < numTramos; t++) {
+                cortes[t] = Math.max(cortes[t - 1], lector.inicioDeLineaDesde(desde + (tamano - desde) * t / numTramos));
+            }
+        }
+
+        if (numTramos == 1) {
+            return leerTramo(archivo, cortes[0], cortes[1], columnas);
+        }
+
+        ExecutorService ejecutor = Executors.newFixedThreadPool(numTramos);
+        try {
+            List<Future<ListaAristas>> tareas = new ArrayList<>();
+            for (int t = 0; t < numTramos; t++) {
+                long inicio = cortes[t];
+                long fin = cortes[t + 1];
+                tareas.add(ejecutor.submit(() -> leerTramo(archivo, inicio, fin, columnas)));
+            }
+
+            List<ListaAristas> partes = new ArrayList<>();
+            int total = 0;
+            for (Future<ListaAristas> tarea : tareas) {
+                ListaAristas parte = tarea.get();
+                partes.add(parte);
+                total += parte.tamano();
+            }
+
+            ListaAristas aristas = new ListaAristas(total);
+            for (ListaAristas parte : partes) {
+                aristas.agregarTodas(parte);
+            }
+            return aristas;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Lectura interrumpida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof NumberFormatException) {
+                throw (NumberFormatException) e.getCause();
+            }
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException("Error al leer el archivo", e.getCause());
+        } finally {
+            ejecutor.shutdown();
+        }
+    }
+
+    private static ListaAristas leerTramo(String archivo, long desde, long hasta, int columnas) throws IOException {
+        ListaAristas aristas = new ListaAristas((int) Math.min(1 << 20, Math.max(16, (hasta - desde) / 8)));
+        int[] valores = new int[columnas];
+        try (LectorEnteros lector = new LectorEnteros(archivo, desde, hasta)) {
+            int cantidad;
+            while ((cantidad = lector.leerLinea(valores)) != -1) {
+                if (cantidad == columnas) {
+                    aristas.agregar(valores[0], valores[1], columnas >= 3 ? valores[2] : 1);
+                } else if (lineaInvalida(cantidad, columnas)) {
+                    // Con el número de columnas esperado, un token que no es un entero es un error
+                    throw lector.errorDeLinea();
+                }
+            }
+        }
+        return aristas;
+    }
+
+    // Primer byte posterior al siguiente salto de línea a partir de la posición dada
+    private long inicioDeLineaDesde(long desde) throws IOException {
+        mapear(desde);
+        while (!finDeArchivo()) {
+            asegurarMargen();
+            if (ventana.get(posicion++) == '\n') {
+                break;
+            }
+        }
+        return posicion();
+    }
+}
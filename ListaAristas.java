@@ -0,0 +1,67 @@
+import java.util.Arrays;
+
+/**
+ * Lista de aristas almacenada en arreglos primitivos paralelos (origen, destino, peso).
+ * Los cargadores de los programas la llenan al leer el archivo de entrada, sin crear
+ * un objeto por arista, y a partir de ella se construye el {@link GrafoCSR}.
+ */
+public class ListaAristas {
+    int[] origenes;
+    int[] destinos;
+    int[] pesos;
+    int tamano;
+    int numVertices; // Mayor índice de vértice visto + 1
+
+    public ListaAristas() {
+        this(16);
+    }
+
+    public ListaAristas(int capacidadInicial) {
+        int capacidad = Math.max(1, capacidadInicial);
+        origenes = new int[capacidad];
+        destinos = new int[capacidad];
+        pesos = new int[capacidad];
+    }
+
+    /**
+     * Agrega una arista al final de la lista, ampliando los arreglos si es necesario.
+     */
+    public void agregar(int origen, int destino, int peso) {
+        if (origen < 0 || destino < 0) {
+            throw new NumberFormatException("Vértice negativo: " + origen + " " + destino);
+        }
+        if (tamano == origenes.length) {
+            int nuevaCapacidad = origenes.length * 2;
+            origenes = Arrays.copyOf(origenes, nuevaCapacidad);
+            destinos = Arrays.copyOf(destinos, nuevaCapacidad);
+            pesos = Arrays.copyOf(pesos, nuevaCapacidad);
+        }
+        origenes[tamano] = origen;
+        destinos[tamano] = destino;
+        pesos[tamano] = peso;
+        tamano++;
+        numVertices = Math.max(numVertices, Math.max(origen, destino) + 1);
+    }
+
+    /**
+     * Agrega al final todas las aristas de otra lista.
+     */
+    public void agregarTodas(ListaAristas otra) {
+        int nuevoTamano = tamano + otra.tamano;
+        if (nuevoTamano > origenes.length) {
+            int nuevaCapacidad = Math.max(nuevoTamano, origenes.length * 2);
+            origenes = Arrays.copyOf(origenes, nuevaCapacidad);
+            destinos = Arrays.copyOf(destinos, nuevaCapacidad);
+            pesos = Arrays.copyOf(pesos, nuevaCapacidad);
+        }
+        System.arraycopy(otra.origenes, 0, origenes, tamano, otra.tamano);
+        System.arraycopy(otra.destinos, 0, destinos, tamano, otra.tamano);
+        System.arraycopy(otra.pesos, 0, pesos, tamano, otra.tamano);
+        tamano = nuevoTamano;
+        numVertices = Math.max(numVertices, otra.numVertices);
+    }
+
+    public int tamano() {
+        return tamano;
+    }
+}
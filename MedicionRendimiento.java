@@ -0,0 +1,301 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Mide el tiempo de los algoritmos de los cuatro programas sobre grafos sintéticos de
+ * GeneradorGrafos, a varios tamaños. Cada combinación de caso, generador y tamaño se genera
+ * una vez con la semilla dada, se ejecuta varias veces sin medir para que el compilador JIT
+ * optimice el código y luego se mide iteración por iteración. La preparación de cada iteración
+ * (copias de capacidades, listas a ordenar) queda fuera de la medición.
+ *
+ * Casos: dijkstra, bellman-ford, floyd-warshall, componentes, kruskal, kruskal-objetos,
+ * boruvka, filtro-kruskal, edmonds-karp, dinic, push-relabel. Los de flujo usan siempre el
+ * generador de capas y el tamaño es el número de camiones; el resto usa el número de vértices.
+ * Dijkstra y Bellman-Ford calculan, por iteración, las distancias desde 8 orígenes fijos.
+ *
+ * Uso: java MedicionRendimiento [--casos=a,b,...] [--generadores=cuadricula,disperso,...]
+ *      [--tamanos=1000,10000,...] [--calentamiento=N] [--iteraciones=N] [--semilla=N] [--hilos=N]
+ */
+public class MedicionRendimiento {
+    private static final String[] CASOS = {
+        "dijkstra", "bellman-ford", "floyd-warshall", "componentes", "kruskal", "kruskal-objetos",
+        "boruvka", "filtro-kruskal", "edmonds-karp", "dinic", "push-relabel"
+    };
+
+    // Orígenes por iteración en Dijkstra y Bellman-Ford
+    private static final int NUM_ORIGENES = 8;
+
+    // Límites por encima de los cuales un caso se omite por tiempo o memoria
+    private static final int MAXIMO_FLOYD = 4000;
+    private static final int MAXIMO_EDMONDS_KARP = 20000;
+    private static final long MAXIMO_ARISTAS = 50_000_000L;
+
+    // Acumula los resultados de cada iteración para que el JIT no elimine el trabajo medido;
+    // se imprime al final y además sirve para comparar dos versiones del código
+    private static long sumaDeControl;
+
+    public static void main(String[] args) {
+        String[] casos = obtenerOpcion(args, "--casos", String.join(",", CASOS)).split(",");
+        String[] generadores = obtenerOpcion(args, "--generadores", "cuadricula,disperso,potencia").split(",");
+        String[] tamanos = obtenerOpcion(args, "--tamanos", "1000,10000,100000").split(",");
+        int calentamiento = Integer.parseInt(obtenerOpcion(args, "--calentamiento", "3"));
+        int iteraciones = Integer.parseInt(obtenerOpcion(args, "--iteraciones", "5"));
+        long semilla = Long.parseLong(obtenerOpcion(args, "--semilla", "42"));
+        int numHilos = Integer.parseInt(obtenerOpcion(args, "--hilos",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        if (iteraciones < 1) {
+            System.err.println("El número de iteraciones debe ser positivo: " + iteraciones);
+            return;
+        }
+
+        System.out.println("caso\tgenerador\ttamaño\taristas\tmedia_ms\tdesviacion_ms\tminimo_ms");
+        for (String caso : casos) {
+            if (!Arrays.asList(CASOS).contains(caso)) {
+                System.err.println("Caso desconocido: " + caso);
+                continue;
+            }
+            boolean esFlujo = caso.equals("edmonds-karp") || caso.equals("dinic") || caso.equals("push-relabel");
+            for (String generador : esFlujo ? new String[] {"capas"} : generadores) {
+                for (String textoTamano : tamanos) {
+                    int tamano = Integer.parseInt(textoTamano.trim());
+                    String omitido = motivoOmision(caso, generador, tamano);
+                    if (omitido != null) {
+                        System.out.println(caso + "\t" + generador + "\t" + tamano + "\tomitido (" + omitido + ")");
+                        continue;
+                    }
+                    Medicion medicion;
+                    try {
+                        medicion = preparar(caso, generador, tamano, semilla, numHilos);
+                    } catch (IllegalArgumentException e) {
+                        System.err.println("Parámetro inválido: " + e.getMessage());
+                        continue;
+                    }
+                    medir(caso, generador, tamano, medicion, calentamiento, iteraciones);
+                }
+            }
+        }
+        System.out.println("Suma de control: " + sumaDeControl);
+    }
+
+    // Devuelve por qué se omite la combinación, o null si se puede medir
+    private static String motivoOmision(String caso, String generador, int tamano) {
+        if (caso.equals("floyd-warshall") && tamano > MAXIMO_FLOYD) {
+            return "más de " + MAXIMO_FLOYD + " vértices";
+        }
+        if (caso.equals("edmonds-karp") && tamano > MAXIMO_EDMONDS_KARP) {
+            return "más de " + MAXIMO_EDMONDS_KARP + " camiones";
+        }
+        if (!generador.equals("capas") && GeneradorGrafos.aristasEstimadas(generador, tamano) > MAXIMO_ARISTAS) {
+            return "más de " + MAXIMO_ARISTAS + " aristas";
+        }
+        return null;
+    }
+
+    private static void medir(String caso, String generador, int tamano, Medicion medicion,
+                              int calentamiento, int iteraciones) {
+        for (int i = 0; i < calentamiento; i++) {
+            medicion.preparar();
+            sumaDeControl += medicion.ejecutar();
+        }
+
+        double[] tiempos = new double[iteraciones];
+        for (int i = 0; i < iteraciones; i++) {
+            medicion.preparar();
+            long inicio = System.nanoTime();
+            sumaDeControl += medicion.ejecutar();
+            tiempos[i] = (System.nanoTime() - inicio) / 1e6;
+        }
+
+        double media = 0;
+        double minimo = Double.MAX_VALUE;
+        for (double t : tiempos) {
+            media += t;
+            minimo = Math.min(minimo, t);
+        }
+        media /= iteraciones;
+        double varianza = 0;
+        for (double t : tiempos) {
+            varianza += (t - media) * (t - media);
+        }
+        double desviacion = iteraciones > 1 ? Math.sqrt(varianza / (iteraciones - 1)) : 0;
+
+        System.out.println(caso + "\t" + generador + "\t" + tamano + "\t" + medicion.numAristas + "\t" +
+                String.format("%.3f\t%.3f\t%.3f", media, desviacion, minimo));
+    }
+
+    /**
+     * Genera la entrada del caso y devuelve la medición lista para ejecutar.
+     *
+     * @param caso Nombre del caso
+     * @param generador Generador de GeneradorGrafos (ignorado en los casos de flujo)
+     * @param tamano Número de vértices o, en los casos de flujo, de camiones
+     * @param semilla Semilla de la generación y de la elección de orígenes
+     * @param numHilos Número de hilos de Floyd-Warshall, Borůvka y filtro-Kruskal
+     * @return Medición del caso
+     */
+    private static Medicion preparar(String caso, String generador, int tamano, long semilla, int numHilos) {
+        switch (caso) {
+            case "dijkstra":
+            case "bellman-ford": {
+                GrafoCSR grafo = GrafoCSR.construirSinRepetidas(tamano, GeneradorGrafos.generar(generador, tamano, semilla, true));
+                int[] origenes = new SplittableRandom(semilla).ints(NUM_ORIGENES, 0, tamano).toArray();
+                boolean esDijkstra = caso.equals("dijkstra");
+                MonticuloIndexado monticulo = new MonticuloIndexado(tamano);
+                return new Medicion(grafo.numArcos) {
+                    long ejecutar() {
+                        long suma = 0;
+                        for (int origen : origenes) {
+                            int[] distancias = esDijkstra ? CaminosMinimos.dijkstraMonticulo(grafo, origen, monticulo)
+                                                          : CaminosMinimos.bellmanFordCola(grafo, origen).distancias;
+                            suma += sumarAlcanzables(distancias);
+                        }
+                        return suma;
+                    }
+                };
+            }
+            case "floyd-warshall": {
+                GrafoCSR grafo = GrafoCSR.construirSinRepetidas(tamano, GeneradorGrafos.generar(generador, tamano, semilla, true));
+                return new Medicion(grafo.numArcos) {
+                    long ejecutar() {
+                        return sumarAlcanzables(CaminosMinimos.floydWarshallBloques(grafo, numHilos));
+                    }
+                };
+            }
+            case "componentes": {
+                GrafoCSR grafo = GrafoCSR.construirNoDirigido(tamano, GeneradorGrafos.generar(generador, tamano, semilla, false));
+                return new Medicion(grafo.numArcos / 2) {
+                    long ejecutar() {
+                        return ComponentesConectados.encontrarComponentesConectados(grafo).size();
+                    }
+                };
+            }
+            case "kruskal":
+            case "boruvka":
+            case "filtro-kruskal":
+                return prepararMst(caso, generador, tamano, semilla, numHilos);
+            case "kruskal-objetos": {
+                ListaAristas vias = GeneradorGrafos.generar(generador, tamano, semilla, false);
+                int[] costos = costosNoDirigidos(vias);
+                List<OptimizacionVias.Arista> originales = new ArrayList<>(vias.tamano());
+                for (int i = 0; i < vias.tamano(); i++) {
+                    originales.add(new OptimizacionVias.Arista(vias.origenes[i], vias.destinos[i], costos[i]));
+                }
+                return new Medicion(vias.tamano()) {
+                    List<OptimizacionVias.Arista> aristas;
+
+                    // kruskal ordena la lista recibida: cada iteración parte de una copia sin ordenar
+                    void preparar() {
+                        aristas = new ArrayList<>(originales);
+                    }
+
+                    long ejecutar() {
+                        long suma = 0;
+                        for (OptimizacionVias.Arista arista : OptimizacionVias.kruskal(aristas, tamano)) {
+                            suma += arista.costo;
+                        }
+                        return suma;
+                    }
+                };
+            }
+            default:
+                return prepararFlujo(caso, tamano, semilla);
+        }
+    }
+
+    private static Medicion prepararMst(String caso, String generador, int tamano, long semilla, int numHilos) {
+        ListaAristas vias = GeneradorGrafos.generar(generador, tamano, semilla, false);
+        int[] costos = costosNoDirigidos(vias);
+        return new Medicion(vias.tamano()) {
+            long ejecutar() {
+                int[] mst;
+                switch (caso) {
+                    case "boruvka":
+                        mst = OptimizacionVias.boruvkaParalelo(vias, costos, tamano, numHilos);
+                        break;
+                    case "filtro-kruskal":
+                        mst = OptimizacionVias.filtroKruskal(vias, costos, tamano, numHilos);
+                        break;
+                    default:
+                        mst = OptimizacionVias.kruskalPrimitivo(vias, costos, tamano);
+                        break;
+                }
+                long suma = 0;
+                for (int indice : mst) {
+                    suma += costos[indice];
+                }
+                return suma;
+            }
+        };
+    }
+
+    private static Medicion prepararFlujo(String caso, int numCamiones, long semilla) {
+        GrafoCSR red = GeneradorGrafos.capas(numCamiones, semilla).construirRed();
+        return new Medicion(red.numArcos / 2) {
+            int[] capacidadResidual;
+
+            // Los algoritmos de flujo modifican las capacidades residuales: se reponen en cada iteración
+            void preparar() {
+                capacidadResidual = Arrays.copyOf(red.pesos, red.numArcos);
+            }
+
+            long ejecutar() {
+                switch (caso) {
+                    case "edmonds-karp":
+                        return DistribucionLibros.fordFulkerson(red, capacidadResidual, 0, 1);
+                    case "push-relabel":
+                        return DistribucionLibros.pushRelabel(red, capacidadResidual, 0, 1);
+                    default:
+                        return DistribucionLibros.dinic(red, capacidadResidual, 0, 1);
+                }
+            }
+        };
+    }
+
+    // Costos en el grafo no dirigido, como en OptimizacionVias: 0 si la vía ya es doble vía
+    private static int[] costosNoDirigidos(ListaAristas vias) {
+        boolean[] esDobleVia = OptimizacionVias.marcarDoblesVias(vias);
+        int[] costos = new int[vias.tamano()];
+        for (int i = 0; i < costos.length; i++) {
+            costos[i] = esDobleVia[i] ? 0 : vias.pesos[i];
+        }
+        return costos;
+    }
+
+    // Suma las distancias finitas (las inalcanzables valen Integer.MAX_VALUE)
+    private static long sumarAlcanzables(int[] distancias) {
+        long suma = 0;
+        for (int d : distancias) {
+            if (d != Integer.MAX_VALUE) {
+                suma += d;
+            }
+        }
+        return suma;
+    }
+
+    private static String obtenerOpcion(String[] args, String nombre, String valorPorDefecto) {
+        for (String arg : args) {
+            if (arg.startsWith(nombre + "=")) {
+                return arg.substring(nombre.length() + 1);
+            }
+        }
+        return valorPorDefecto;
+    }
+
+    // Una combinación de caso, generador y tamaño con su entrada ya generada
+    abstract static class Medicion {
+        final int numAristas;
+
+        Medicion(int numAristas) {
+            this.numAristas = numAristas;
+        }
+
+        // Se ejecuta antes de cada iteración, fuera de la medición
+        void preparar() {
+        }
+
+        // Ejecuta el algoritmo una vez y devuelve un valor derivado de su resultado
+        abstract long ejecutar();
+    }
+}
@@ -0,0 +1,150 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+/**
+ * Contadores de operaciones y tiempos por fase de una ejecución, que los programas imprimen
+ * en JSON con --metricas=json. Mientras no se activan, cada punto de medición se reduce a
+ * leer un booleano estático: los algoritmos cuentan en variables locales dentro de sus ciclos
+ * y llaman a sumar una sola vez al terminar, de modo que el ciclo interno no toca memoria
+ * compartida ni depende de si las métricas están activas.
+ *
+ * La memoria asignada se estima para toda la JVM (todos los hilos) como la suma de lo que
+ * libera cada recolección de basura más el crecimiento del heap en uso desde la activación.
+ */
+public class Metricas {
+    static boolean activas;
+
+    private static long inicioEjecucion;
+    private static long heapInicial;
+    private static final Map<String, Long> fases = new LinkedHashMap<>();
+    private static final ConcurrentHashMap<String, LongAdder> contadores = new ConcurrentHashMap<>();
+    private static final LongAdder bytesRecolectados = new LongAdder();
+
+    /**
+     * Activa las métricas si el formato pedido es válido.
+     *
+     * @param formato Valor de --metricas (por ahora solo json), o null si no se pidió
+     */
+    static void activar(String formato) {
+        if (formato == null) {
+            return;
+        }
+        if (!formato.equals("json")) {
+            System.err.println("Formato de métricas desconocido: " + formato);
+            return;
+        }
+        activas = true;
+        for (GarbageCollectorMXBean recolector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (recolector instanceof NotificationEmitter) {
+                ((NotificationEmitter) recolector).addNotificationListener((notificacion, contexto) -> {
+                    if (notificacion.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+                        GarbageCollectionNotificationInfo info =
+                                GarbageCollectionNotificationInfo.from((CompositeData) notificacion.getUserData());
+                        long liberados = sumarUso(info.getGcInfo().getMemoryUsageBeforeGc())
+                                - sumarUso(info.getGcInfo().getMemoryUsageAfterGc());
+                        bytesRecolectados.add(Math.max(0, liberados));
+                    }
+                }, null, null);
+            }
+        }
+        heapInicial = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        inicioEjecucion = System.nanoTime();
+    }
+
+    /**
+     * Marca el inicio de una fase.
+     *
+     * @return Instante actual en nanosegundos, o 0 si las métricas no están activas
+     */
+    static long inicio() {
+        return activas ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Acumula en la fase el tiempo transcurrido desde inicio. Las fases se imprimen en el orden
+     * en que se registraron por primera vez.
+     */
+    static void fase(String nombre, long inicio) {
+        if (activas) {
+            long duracion = System.nanoTime() - inicio;
+            synchronized (fases) {
+                fases.merge(nombre, duracion, Long::sum);
+            }
+        }
+    }
+
+    /**
+     * Suma una cantidad al contador. Puede llamarse desde varios hilos a la vez.
+     */
+    static void sumar(String nombre, long cantidad) {
+        if (activas) {
+            contadores.computeIfAbsent(nombre, k -> new LongAdder()).add(cantidad);
+        }
+    }
+
+    /**
+     * Imprime las métricas en JSON por la salida de errores, para no mezclarlas con el resultado.
+     *
+     * @param programa Nombre del programa
+     */
+    static void emitir(String programa) {
+        if (!activas) {
+            return;
+        }
+        long totalNanos = System.nanoTime() - inicioEjecucion;
+        long heapMaximo = 0;
+        for (MemoryPoolMXBean area : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (area.getType() == MemoryType.HEAP && area.getPeakUsage() != null) {
+                heapMaximo += area.getPeakUsage().getUsed();
+            }
+        }
+        long heapActual = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        long bytesAsignados = bytesRecolectados.sum() + Math.max(0, heapActual - heapInicial);
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\"programa\":\"").append(programa).append('"');
+        json.append(",\"tiempo_total_ms\":").append(String.format(Locale.ROOT, "%.3f", totalNanos / 1e6));
+        json.append(",\"fases_ms\":{");
+        synchronized (fases) {
+            boolean primero = true;
+            for (Map.Entry<String, Long> fase : fases.entrySet()) {
+                json.append(primero ? "" : ",").append('"').append(fase.getKey()).append("\":")
+                    .append(String.format(Locale.ROOT, "%.3f", fase.getValue() / 1e6));
+                primero = false;
+            }
+        }
+        json.append("},\"contadores\":{");
+        boolean primero = true;
+        for (Map.Entry<String, LongAdder> contador : new TreeMap<>(contadores).entrySet()) {
+            json.append(primero ? "" : ",").append('"').append(contador.getKey()).append("\":")
+                .append(contador.getValue().sum());
+            primero = false;
+        }
+        json.append("},\"heap_maximo_bytes\":").append(heapMaximo);
+        json.append(",\"bytes_asignados\":").append(bytesAsignados);
+        json.append(",\"asignacion_mb_por_s\":")
+            .append(String.format(Locale.ROOT, "%.1f", totalNanos == 0 ? 0.0 : bytesAsignados / 1048576.0 / (totalNanos / 1e9)));
+        json.append('}');
+        System.err.println(json);
+    }
+
+    private static long sumarUso(Map<String, MemoryUsage> usoPorArea) {
+        long total = 0;
+        for (MemoryUsage uso : usoPorArea.values()) {
+            total += uso.getUsed();
+        }
+        return total;
+    }
+}
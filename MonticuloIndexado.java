@@ -0,0 +1,127 @@
+import java.util.Arrays;
+
+/**
+ * Montículo binario indexado de mínimos con operación de disminuir clave, sobre arreglos
+ * primitivos. Cada vértice está a lo sumo una vez y se conoce su posición, de modo que
+ * disminuir su clave cuesta O(log n) sin insertar duplicados.
+ */
+public class MonticuloIndexado {
+    int[] monticulo;  // vértices ordenados como montículo
+    int[] posicion;   // posición de cada vértice en el montículo, -1 si no está
+    long[] claves;    // clave (distancia) de cada vértice
+    int tamano;
+    // Época en que se extrajo cada vértice: fue extraído desde el último limpiar si coincide
+    // con la época actual, así limpiar no recorre los vértices ya extraídos
+    private final int[] epocaExtraccion;
+    private int epoca = 1;
+
+    public MonticuloIndexado(int capacidad) {
+        monticulo = new int[capacidad];
+        posicion = new int[capacidad];
+        claves = new long[capacidad];
+        epocaExtraccion = new int[capacidad];
+        Arrays.fill(posicion, -1);
+    }
+
+    boolean estaVacio() {
+        return tamano == 0;
+    }
+
+    boolean contiene(int vertice) {
+        return posicion[vertice] != -1;
+    }
+
+    /**
+     * Clave del vértice en la cima (la menor), sin extraerlo. El montículo no debe estar vacío.
+     */
+    long minimaClave() {
+        return claves[monticulo[0]];
+    }
+
+    /**
+     * Indica si el vértice se extrajo desde el último limpiar.
+     */
+    boolean fueExtraido(int vertice) {
+        return epocaExtraccion[vertice] == epoca;
+    }
+
+    /**
+     * Vacía el montículo y olvida qué vértices se extrajeron.
+     */
+    void limpiar() {
+        for (int i = 0; i < tamano; i++) {
+            posicion[monticulo[i]] = -1;
+        }
+        tamano = 0;
+        if (++epoca == Integer.MAX_VALUE) {
+            Arrays.fill(epocaExtraccion, 0);
+            epoca = 1;
+        }
+    }
+
+    /**
+     * Inserta el vértice con la clave dada o disminuye su clave si ya está en el montículo.
+     */
+    void insertarODisminuir(int vertice, long clave) {
+        int i = posicion[vertice];
+        if (i == -1) {
+            i = tamano++;
+            monticulo[i] = vertice;
+            posicion[vertice] = i;
+        } else if (clave >= claves[vertice]) {
+            return;
+        }
+        claves[vertice] = clave;
+        subir(i);
+    }
+
+    /**
+     * Extrae el vértice con la menor clave.
+     */
+    int extraerMinimo() {
+        int minimo = monticulo[0];
+        posicion[minimo] = -1;
+        epocaExtraccion[minimo] = epoca;
+        tamano--;
+        if (tamano > 0) {
+            int ultimo = monticulo[tamano];
+            monticulo[0] = ultimo;
+            posicion[ultimo] = 0;
+            bajar(0);
+        }
+        return minimo;
+    }
+
+    private void subir(int i) {
+        int vertice = monticulo[i];
+        long clave = claves[vertice];
+        while (i > 0) {
+            int padre = (i - 1) >>> 1;
+            int verticePadre = monticulo[padre];
+            if (claves[verticePadre] <= clave) break;
+            monticulo[i] = verticePadre;
+            posicion[verticePadre] = i;
+            i = padre;
+        }
+        monticulo[i] = vertice;
+        posicion[vertice] = i;
+    }
+
+    private void bajar(int i) {
+        int vertice = monticulo[i];
+        long clave = claves[vertice];
+        while (true) {
+            int hijo = 2 * i + 1;
+            if (hijo >= tamano) break;
+            if (hijo + 1 < tamano && claves[monticulo[hijo + 1]] < claves[monticulo[hijo]]) {
+                hijo++;
+            }
+            if (claves[monticulo[hijo]] >= clave) break;
+            monticulo[i] = monticulo[hijo];
+            posicion[monticulo[i]] = i;
+            i = hijo;
+        }
+        monticulo[i] = vertice;
+        posicion[vertice] = i;
+    }
+}
@@ -2,46 +2,211 @@ import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class OptimizacionVias {
     
     public static void main(String[] args) {
         if (args.length < 1) {
-            System.out.println("Uso: java OptimizacionVias <archivo_entrada>");
+            System.out.println("Uso: java OptimizacionVias <archivo_entrada> [--mst=kruskal|boruvka|filtro-kruskal] [--kruskal=primitivo|objetos] [--hilos=N] [--cambios=archivo_cambios] [--metricas=json]");
             return;
         }
         
         String archivoEntrada = args[0];
+        String algoritmoMst = obtenerOpcion(args, "--mst", "kruskal");
+        String modoKruskal = obtenerOpcion(args, "--kruskal", "primitivo");
+        int numHilos = Integer.parseInt(obtenerOpcion(args, "--hilos",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        String archivoCambios = obtenerOpcion(args, "--cambios", null);
+        Metricas.activar(obtenerOpcion(args, "--metricas", null));
         int numIntersecciones = 0;
-        List<Arista> aristas = new ArrayList<>();
-        Map<Par, Integer> costosConversion = new HashMap<>();
+        ListaAristas vias;
         
+        long inicioCarga = Metricas.inicio();
         try {
-            // Leer el archivo de entrada
-            BufferedReader br = new BufferedReader(new FileReader(archivoEntrada));
+            // Leer el archivo de entrada: binario si tiene el encabezado del formato, si no texto
+            if (ArchivoGrafoBinario.esBinario(archivoEntrada)) {
+                vias = ArchivoGrafoBinario.leer(archivoEntrada);
+                numIntersecciones = vias.numVertices;
+            } else {
+                try (LectorEnteros lector = new LectorEnteros(archivoEntrada)) {
+                    int[] valores = new int[3];
+                    
+                    // Primera línea: número de intersecciones y número de vías
+                    lector.leerLineaCompleta(valores, 2);
+                    numIntersecciones = valores[0];
+                    int numVias = valores[1];
+                    
+                    // Leer las vías y sus costos de conversión
+                    vias = new ListaAristas(numVias);
+                    for (int i = 0; i < numVias; i++) {
+                        lector.leerLineaCompleta(valores, 3);
+                        vias.agregar(valores[0], valores[1], valores[2]);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error al leer el archivo: " + e.getMessage());
+            return;
+        } catch (NumberFormatException e) {
+            System.err.println("Error en el formato del archivo: " + e.getMessage());
+            return;
+        }
+        Metricas.fase("carga", inicioCarga);
+        
+        if (archivoCambios != null) {
+            optimizarIncremental(vias, numIntersecciones, archivoCambios);
+        } else if (algoritmoMst.equals("kruskal") && modoKruskal.equals("objetos")) {
+            optimizarConObjetos(vias, numIntersecciones);
+        } else {
+            optimizarPrimitivo(vias, numIntersecciones, algoritmoMst, numHilos);
+        }
+        Metricas.emitir("OptimizacionVias");
+    }
+    
+    /**
+     * Resuelve el problema con arreglos primitivos: las dobles vías se detectan con una tabla
+     * hash de claves long, las vías se ordenan por costo con radix sort sobre sus índices y
+     * Kruskal usa el conjunto disjunto sin recursión. No se crea ningún objeto por vía.
+     * Borůvka y filtro-Kruskal desempatan igual que Kruskal (por costo y luego por posición en
+     * el archivo), así que los tres obtienen el mismo árbol y lo devuelven en el mismo orden.
+     * 
+     * @param vias Vías leídas del archivo (origen, destino y costo de conversión)
+     * @param numIntersecciones Número de intersecciones de la ciudad
+     * @param algoritmoMst kruskal, boruvka o filtro-kruskal
+     * @param numHilos Número de hilos para Borůvka y filtro-Kruskal
+     */
+    private static void optimizarPrimitivo(ListaAristas vias, int numIntersecciones,
+                                           String algoritmoMst, int numHilos) {
+        // Verificar si ya existen dobles vías
+        long inicioFase = Metricas.inicio();
+        boolean[] esDobleVia = marcarDoblesVias(vias);
+        
+        // Costo en el grafo no dirigido: 0 si ya es doble vía
+        int[] costos = new int[vias.tamano()];
+        for (int i = 0; i < costos.length; i++) {
+            costos[i] = esDobleVia[i] ? 0 : vias.pesos[i];
+        }
+        Metricas.fase("dobles_vias", inicioFase);
+        
+        // Encontrar el MST con el algoritmo elegido
+        inicioFase = Metricas.inicio();
+        int[] mst;
+        switch (algoritmoMst) {
+            case "boruvka":
+                mst = boruvkaParalelo(vias, costos, numIntersecciones, numHilos);
+                break;
+            case "filtro-kruskal":
+                mst = filtroKruskal(vias, costos, numIntersecciones, numHilos);
+                break;
+            default:
+                mst = kruskalPrimitivo(vias, costos, numIntersecciones);
+                break;
+        }
+        Metricas.fase("mst", inicioFase);
+        
+        // Calcular el costo total y las vías a convertir
+        inicioFase = Metricas.inicio();
+        long costoTotal = 0;
+        int numConvertir = 0;
+        int[] viasAConvertir = new int[mst.length];
+        for (int indice : mst) {
+            if (!esDobleVia[indice] && costos[indice] > 0) {
+                costoTotal += costos[indice];
+                viasAConvertir[numConvertir++] = indice;
+            }
+        }
+        
+        // Imprimir resultados
+        StringBuilder sb = new StringBuilder();
+        sb.append("Costo total de conversión: ").append(costoTotal).append('\n');
+        sb.append("Vías a convertir en doble vía:\n");
+        for (int i = 0; i < numConvertir; i++) {
+            int indice = viasAConvertir[i];
+            sb.append(vias.origenes[indice]).append(" -> ").append(vias.destinos[indice]).append('\n');
+        }
+        System.out.print(sb);
+        Metricas.fase("impresion", inicioFase);
+    }
+    
+    /**
+     * Resuelve el problema y luego aplica, uno por uno, los cambios del archivo de cambios sin
+     * recalcular el árbol desde cero. Cada línea del archivo es uno de:
+     *   agregar <origen> <destino> <costo>
+     *   eliminar <origen> <destino>
+     *   costo <origen> <destino> <nuevo_costo>
+     * (eliminar y costo actúan sobre la última vía registrada con ese origen y destino).
+     * Por cada cambio se imprime el nuevo costo total y las vías que entran (+) o salen (-) de
+     * la lista de vías a convertir.
+     * 
+     * @param vias Vías leídas del archivo (origen, destino y costo de conversión)
+     * @param numIntersecciones Número de intersecciones de la ciudad
+     * @param archivoCambios Archivo con los cambios a aplicar
+     */
+    private static void optimizarIncremental(ListaAristas vias, int numIntersecciones, String archivoCambios) {
+        long inicioFase = Metricas.inicio();
+        ViasDinamicas dinamicas = new ViasDinamicas(Math.max(numIntersecciones, vias.numVertices), vias);
+        StringBuilder sb = new StringBuilder();
+        dinamicas.imprimirResultado(sb);
+        Metricas.fase("arbol_inicial", inicioFase);
+        
+        long tiempoTotal = 0;
+        int numCambios = 0;
+        inicioFase = Metricas.inicio();
+        try (BufferedReader br = new BufferedReader(new FileReader(archivoCambios))) {
             String linea;
-            
-            // Primera línea: número de intersecciones y número de vías
-            linea = br.readLine();
-            String[] partes = linea.trim().split("\\s+");
-            numIntersecciones = Integer.parseInt(partes[0]);
-            int numVias = Integer.parseInt(partes[1]);
-            
-            // Leer las vías y sus costos de conversión
-            for (int i = 0; i < numVias; i++) {
-                linea = br.readLine();
-                partes = linea.trim().split("\\s+");
-                int origen = Integer.parseInt(partes[0]);
-                int destino = Integer.parseInt(partes[1]);
-                int costo = Integer.parseInt(partes[2]);
+            while ((linea = br.readLine()) != null) {
+                linea = linea.trim();
+                if (linea.isEmpty()) {
+                    continue;
+                }
+                String[] partes = linea.split("\\s+");
+                int esperadas = partes[0].equals("eliminar") ? 3 : 4;
+                if (partes.length != esperadas) {
+                    System.err.println("Error en el formato del archivo: " + linea);
+                    return;
+                }
+                int origen = Integer.parseInt(partes[1]);
+                int destino = Integer.parseInt(partes[2]);
+                int costo = esperadas == 4 ? Integer.parseInt(partes[3]) : 0;
                 
-                // Guardar la arista y su costo de conversión
-                Par par = new Par(origen, destino);
-                costosConversion.put(par, costo);
-                aristas.add(new Arista(origen, destino, costo));
+                StringBuilder delta = new StringBuilder();
+                long inicio = System.nanoTime();
+                boolean aplicado;
+                try {
+                    switch (partes[0]) {
+                        case "agregar":
+                            dinamicas.agregar(origen, destino, costo, delta);
+                            aplicado = true;
+                            break;
+                        case "eliminar":
+                            aplicado = dinamicas.eliminar(origen, destino, delta);
+                            break;
+                        case "costo":
+                            aplicado = dinamicas.cambiarCosto(origen, destino, costo, delta);
+                            break;
+                        default:
+                            System.err.println("Cambio no reconocido: " + linea);
+                            continue;
+                    }
+                } catch (IllegalArgumentException e) {
+                    System.err.println(e.getMessage());
+                    continue;
+                }
+                tiempoTotal += System.nanoTime() - inicio;
+                
+                if (!aplicado) {
+                    System.err.println("No existe la vía " + origen + " -> " + destino);
+                    continue;
+                }
+                numCambios++;
+                sb.append("\nCambio: ").append(linea).append('\n');
+                sb.append("Costo total de conversión: ").append(dinamicas.costoTotal).append('\n');
+                sb.append(delta);
             }
-            
-            br.close();
         } catch (IOException e) {
             System.err.println("Error al leer el archivo: " + e.getMessage());
             return;
@@ -50,6 +215,39 @@ public class OptimizacionVias {
             return;
         }
         
+        Metricas.fase("cambios", inicioFase);
+        Metricas.sumar("cambios.aplicados", numCambios);
+        
+        sb.append("\nResultado final:\n");
+        dinamicas.imprimirResultado(sb);
+        System.out.print(sb);
+        if (numCambios > 0) {
+            System.out.printf("Tiempo promedio por cambio: %.6f ms%n", tiempoTotal / 1e6 / numCambios);
+        }
+    }
+    
+    /**
+     * Resuelve el problema con la versión original basada en objetos Arista y mapas de Par.
+     * 
+     * @param vias Vías leídas del archivo (origen, destino y costo de conversión)
+     * @param numIntersecciones Número de intersecciones de la ciudad
+     */
+    private static void optimizarConObjetos(ListaAristas vias, int numIntersecciones) {
+        long inicioFase = Metricas.inicio();
+        List<Arista> aristas = new ArrayList<>();
+        Map<Par, Integer> costosConversion = new HashMap<>();
+        
+        // Guardar las vías y sus costos de conversión
+        for (int i = 0; i < vias.tamano(); i++) {
+            int origen = vias.origenes[i];
+            int destino = vias.destinos[i];
+            int costo = vias.pesos[i];
+            
+            Par par = new Par(origen, destino);
+            costosConversion.put(par, costo);
+            aristas.add(new Arista(origen, destino, costo));
+        }
+        
         // Crear un grafo no dirigido donde cada arista tiene el costo de conversión
         List<Arista> aristasNoDir = new ArrayList<>();
         Map<Par, Boolean> existeDobleVia = new HashMap<>();
@@ -80,10 +278,15 @@ public class OptimizacionVias {
             }
         }
         
+        Metricas.fase("dobles_vias", inicioFase);
+        
         // Aplicar el algoritmo de Kruskal para encontrar el MST
+        inicioFase = Metricas.inicio();
         List<Arista> mst = kruskal(aristasNoDir, numIntersecciones);
+        Metricas.fase("mst", inicioFase);
         
         // Calcular el costo total y las vías a convertir
+        inicioFase = Metricas.inicio();
         int costoTotal = 0;
         List<Par> viasAConvertir = new ArrayList<>();
         
@@ -110,6 +313,318 @@ public class OptimizacionVias {
         for (Par via : viasAConvertir) {
             System.out.println(via.primero + " -> " + via.segundo);
         }
+        Metricas.fase("impresion", inicioFase);
+    }
+    
+    /**
+     * Marca las vías cuya inversa también existe (ya son doble vía). Los pares (origen, destino)
+     * se guardan como claves long en una tabla hash de direccionamiento abierto.
+     * 
+     * @param vias Vías leídas del archivo
+     * @return Para cada vía, true si ya existe la vía en sentido contrario
+     */
+    static boolean[] marcarDoblesVias(ListaAristas vias) {
+        int numVias = vias.tamano();
+        int capacidad = Integer.highestOneBit(Math.max(2, numVias) * 2 - 1) << 1;
+        int mascara = capacidad - 1;
+        long[] tabla = new long[capacidad];
+        Arrays.fill(tabla, -1L);
+        
+        for (int i = 0; i < numVias; i++) {
+            long clave = clavePar(vias.origenes[i], vias.destinos[i]);
+            int posicion = dispersar(clave) & mascara;
+            while (tabla[posicion] != -1L && tabla[posicion] != clave) {
+                posicion = (posicion + 1) & mascara;
+            }
+            tabla[posicion] = clave;
+        }
+        
+        boolean[] esDobleVia = new boolean[numVias];
+        for (int i = 0; i < numVias; i++) {
+            long inversa = clavePar(vias.destinos[i], vias.origenes[i]);
+            int posicion = dispersar(inversa) & mascara;
+            while (tabla[posicion] != -1L) {
+                if (tabla[posicion] == inversa) {
+                    esDobleVia[i] = true;
+                    break;
+                }
+                posicion = (posicion + 1) & mascara;
+            }
+        }
+        return esDobleVia;
+    }
+    
+    private static long clavePar(int origen, int destino) {
+        return ((long) origen << 32) | (destino & 0xFFFFFFFFL);
+    }
+    
+    private static int dispersar(long clave) {
+        long h = clave * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+    
+    /**
+     * Kruskal sobre arreglos primitivos. Los índices de las vías se ordenan por costo con un
+     * radix sort estable (mismo orden que Collections.sort sobre las Arista).
+     * 
+     * @param vias Vías leídas del archivo
+     * @param costos Costo de cada vía en el grafo no dirigido
+     * @param numVertices Número de vértices en el grafo
+     * @return Índices de las vías que forman el MST, en el orden en que se agregaron
+     */
+    static int[] kruskalPrimitivo(ListaAristas vias, int[] costos, int numVertices) {
+        // Ordenar las vías por costo
+        int[] orden = ordenarPorCosto(costos);
+        
+        // Inicializar el conjunto disjunto
+        ConjuntosDisjuntos ds = new ConjuntosDisjuntos(numVertices);
+        
+        int[] mst = new int[Math.max(0, Math.min(orden.length, numVertices - 1))];
+        int tamanoMst = 0;
+        
+        int examinadas = 0;
+        long pasosBusqueda = 0;
+        boolean medir = Metricas.activas;
+        for (int indice : orden) {
+            if (tamanoMst == mst.length) {
+                break;
+            }
+            examinadas++;
+            if (medir) {
+                pasosBusqueda += ds.profundidad(vias.origenes[indice]) + ds.profundidad(vias.destinos[indice]);
+            }
+            
+            // Si incluir esta vía no forma un ciclo, agregarla al MST
+            if (ds.union(vias.origenes[indice], vias.destinos[indice])) {
+                mst[tamanoMst++] = indice;
+            }
+        }
+        // Cada vía examinada hace dos búsquedas
+        Metricas.sumar("kruskal.vias_examinadas", examinadas);
+        Metricas.sumar("union_find.busquedas", 2L * examinadas);
+        Metricas.sumar("union_find.pasos_busqueda", pasosBusqueda);
+        
+        return Arrays.copyOf(mst, tamanoMst);
+    }
+    
+    /**
+     * Radix sort LSD estable de los índices 0..n-1 según el costo, en dos pasadas de 16 bits.
+     * Se salta una pasada cuando todos los costos comparten ese dígito.
+     * 
+     * @param costos Costo de cada índice
+     * @return Índices ordenados por costo ascendente; los empates conservan el orden original
+     */
+    private static int[] ordenarPorCosto(int[] costos) {
+        int n = costos.length;
+        int[] orden = new int[n];
+        for (int i = 0; i < n; i++) {
+            orden[i] = i;
+        }
+        int[] auxiliar = new int[n];
+        int[] conteo = new int[(1 << 16) + 1];
+        
+        for (int desplazamiento = 0; desplazamiento < 32; desplazamiento += 16) {
+            Arrays.fill(conteo, 0);
+            for (int i = 0; i < n; i++) {
+                // Invertir el bit de signo para que los costos negativos queden primero
+                int digito = ((costos[i] ^ Integer.MIN_VALUE) >>> desplazamiento) & 0xFFFF;
+                conteo[digito + 1]++;
+            }
+            if (n > 0 && conteo[(((costos[0] ^ Integer.MIN_VALUE) >>> desplazamiento) & 0xFFFF) + 1] == n) {
+                continue;
+            }
+            for (int d = 0; d < (1 << 16); d++) {
+                conteo[d + 1] += conteo[d];
+            }
+            for (int i = 0; i < n; i++) {
+                int indice = orden[i];
+                int digito = ((costos[indice] ^ Integer.MIN_VALUE) >>> desplazamiento) & 0xFFFF;
+                auxiliar[conteo[digito]++] = indice;
+            }
+            int[] temporal = orden;
+            orden = auxiliar;
+            auxiliar = temporal;
+        }
+        
+        return orden;
+    }
+    
+    /**
+     * Clave de orden de una vía: costo en los 32 bits altos e índice en los bajos. Ordenar por
+     * esta clave equivale a ordenar por costo de forma estable, como hace Kruskal.
+     */
+    private static long claveOrden(int costo, int indice) {
+        return ((long) costo << 32) | indice;
+    }
+    
+    /**
+     * Borůvka paralelo. En cada ronda cada hilo recorre un tramo de las vías activas y guarda, en
+     * su propio arreglo, la vía más barata que sale de cada componente; luego se combinan los
+     * arreglos de todos los hilos, se marcan esas vías como parte del MST y se unen los
+     * componentes con el Union-Find concurrente. Las vías internas a un componente se descartan,
+     * por lo que hay a lo sumo log2(V) rondas.
+     * 
+     * @param vias Vías leídas del archivo
+     * @param costos Costo de cada vía en el grafo no dirigido
+     * @param numVertices Número de vértices en el grafo
+     * @param numHilos Número de hilos
+     * @return Índices de las vías que forman el MST, en el orden en que Kruskal las agregaría
+     */
+    static int[] boruvkaParalelo(ListaAristas vias, int[] costos, int numVertices, int numHilos) {
+        int numVias = vias.tamano();
+        int hilos = Math.max(1, Math.min(numHilos, Math.max(1, numVias)));
+        ConjuntosConcurrentes conjuntos = new ConjuntosConcurrentes(numVertices);
+        boolean[] enMst = new boolean[numVias];
+        
+        // Vía más barata de cada componente, un arreglo por hilo (-1 si no hay)
+        int[][] masBarata = new int[hilos][numVertices];
+        for (int[] arreglo : masBarata) {
+            Arrays.fill(arreglo, -1);
+        }
+        
+        int[] activas = new int[numVias];
+        for (int i = 0; i < numVias; i++) {
+            activas[i] = i;
+        }
+        int numActivas = numVias;
+        int[] conservadas = new int[hilos];
+        
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            int rondas = 0;
+            while (numActivas > 0) {
+                // Buscar la vía más barata de cada componente y descartar las vías internas
+                rondas++;
+                int totalActivas = numActivas;
+                tareas.clear();
+                for (int h = 0; h < hilos; h++) {
+                    int hilo = h;
+                    int inicio = (int) ((long) totalActivas * h / hilos);
+                    int fin = (int) ((long) totalActivas * (h + 1) / hilos);
+                    tareas.add(ejecutor.submit(() -> {
+                        int[] mejor = masBarata[hilo];
+                        int escritura = inicio;
+                        for (int i = inicio; i < fin; i++) {
+                            int via = activas[i];
+                            int raizOrigen = conjuntos.find(vias.origenes[via]);
+                            int raizDestino = conjuntos.find(vias.destinos[via]);
+                            if (raizOrigen == raizDestino) {
+                                continue;
+                            }
+                            activas[escritura++] = via;
+                            long clave = claveOrden(costos[via], via);
+                            if (mejor[raizOrigen] < 0 || clave < claveOrden(costos[mejor[raizOrigen]], mejor[raizOrigen])) {
+                                mejor[raizOrigen] = via;
+                            }
+                            if (mejor[raizDestino] < 0 || clave < claveOrden(costos[mejor[raizDestino]], mejor[raizDestino])) {
+                                mejor[raizDestino] = via;
+                            }
+                        }
+                        conservadas[hilo] = escritura - inicio;
+                    }));
+                }
+                esperar(tareas);
+                
+                // Compactar las vías que siguen uniendo componentes distintos
+                numActivas = 0;
+                for (int h = 0; h < hilos; h++) {
+                    int inicio = (int) ((long) totalActivas * h / hilos);
+                    System.arraycopy(activas, inicio, activas, numActivas, conservadas[h]);
+                    numActivas += conservadas[h];
+                }
+                if (numActivas == 0) {
+                    break;
+                }
+                
+                // Combinar las elecciones de los hilos y unir los componentes
+                tareas.clear();
+                for (int h = 0; h < hilos; h++) {
+                    int inicio = (int) ((long) numVertices * h / hilos);
+                    int fin = (int) ((long) numVertices * (h + 1) / hilos);
+                    tareas.add(ejecutor.submit(() -> {
+                        for (int v = inicio; v < fin; v++) {
+                            int elegida = -1;
+                            for (int[] mejor : masBarata) {
+                                int via = mejor[v];
+                                if (via >= 0) {
+                                    mejor[v] = -1;
+                                    if (elegida < 0 || claveOrden(costos[via], via) < claveOrden(costos[elegida], elegida)) {
+                                        elegida = via;
+                                    }
+                                }
+                            }
+                            if (elegida >= 0) {
+                                enMst[elegida] = true;
+                                conjuntos.union(vias.origenes[elegida], vias.destinos[elegida]);
+                            }
+                        }
+                    }));
+                }
+                esperar(tareas);
+            }
+            Metricas.sumar("boruvka.rondas", rondas);
+        } finally {
+            ejecutor.shutdown();
+        }
+        
+        // Devolver las vías en el orden de Kruskal (costo y luego índice)
+        int tamanoMst = 0;
+        long[] claves = new long[numVias];
+        for (int i = 0; i < numVias; i++) {
+            if (enMst[i]) {
+                claves[tamanoMst++] = claveOrden(costos[i], i);
+            }
+        }
+        Arrays.sort(claves, 0, tamanoMst);
+        int[] mst = new int[tamanoMst];
+        for (int i = 0; i < tamanoMst; i++) {
+            mst[i] = (int) claves[i];
+        }
+        return mst;
+    }
+    
+    /**
+     * Filtro-Kruskal: parte las vías alrededor de un pivote, resuelve primero las más baratas y,
+     * antes de ordenar las más caras, descarta (en paralelo) las que ya unen dos vértices del
+     * mismo componente. Sólo se ordenan los tramos pequeños que sobreviven al filtro.
+     * 
+     * @param vias Vías leídas del archivo
+     * @param costos Costo de cada vía en el grafo no dirigido
+     * @param numVertices Número de vértices en el grafo
+     * @param numHilos Número de hilos para el filtrado
+     * @return Índices de las vías que forman el MST, en el orden en que se agregaron
+     */
+    static int[] filtroKruskal(ListaAristas vias, int[] costos, int numVertices, int numHilos) {
+        int numVias = vias.tamano();
+        long[] claves = new long[numVias];
+        for (int i = 0; i < numVias; i++) {
+            claves[i] = claveOrden(costos[i], i);
+        }
+        
+        int hilos = Math.max(1, numHilos);
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        try {
+            FiltroKruskal filtro = new FiltroKruskal(vias, claves, numVertices, ejecutor, hilos);
+            filtro.procesar(0, numVias);
+            Metricas.sumar("filtro_kruskal.vias_descartadas", filtro.descartadas);
+            return Arrays.copyOf(filtro.mst, filtro.tamanoMst);
+        } finally {
+            ejecutor.shutdown();
+        }
+    }
+    
+    private static void esperar(List<Future<?>> tareas) {
+        try {
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Cálculo del MST interrumpido", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error en el cálculo del MST", e.getCause());
+        }
     }
     
     /**
@@ -119,23 +634,26 @@ public class OptimizacionVias {
      * @param numVertices Número de vértices en el grafo
      * @return Lista de aristas que forman el MST
      */
-    private static List<Arista> kruskal(List<Arista> aristas, int numVertices) {
+    static List<Arista> kruskal(List<Arista> aristas, int numVertices) {
         // Ordenar las aristas por costo
         Collections.sort(aristas);
         
         // Inicializar el conjunto disjunto
-        DisjointSet ds = new DisjointSet(numVertices);
+        ConjuntosDisjuntos ds = new ConjuntosDisjuntos(numVertices);
         
         List<Arista> mst = new ArrayList<>();
         
+        int examinadas = 0;
+        long pasosBusqueda = 0;
+        boolean medir = Metricas.activas;
         for (Arista arista : aristas) {
-            int raizOrigen = ds.find(arista.origen);
-            int raizDestino = ds.find(arista.destino);
-            
+            examinadas++;
+            if (medir) {
+                pasosBusqueda += ds.profundidad(arista.origen) + ds.profundidad(arista.destino);
+            }
             // Si incluir esta arista no forma un ciclo, agregarla al MST
-            if (raizOrigen != raizDestino) {
+            if (ds.union(arista.origen, arista.destino)) {
                 mst.add(arista);
-                ds.union(raizOrigen, raizDestino);
             }
             
             // Si ya tenemos n-1 aristas, hemos completado el MST
@@ -143,6 +661,9 @@ public class OptimizacionVias {
                 break;
             }
         }
+        Metricas.sumar("kruskal.vias_examinadas", examinadas);
+        Metricas.sumar("union_find.busquedas", 2L * examinadas);
+        Metricas.sumar("union_find.pasos_busqueda", pasosBusqueda);
         
         return mst;
     }
@@ -194,50 +715,318 @@ public class OptimizacionVias {
     }
     
     /**
-     * Implementación de la estructura de datos Disjoint Set (Union-Find).
+     * Estado de filtro-Kruskal: claves de las vías (se reordenan en su lugar), Union-Find y
+     * árbol parcial.
      */
-    static class DisjointSet {
-        int[] padre;
-        int[] rango;
+    static class FiltroKruskal {
+        // Por debajo de este tamaño un tramo se ordena y se procesa con Kruskal directamente
+        static final int UMBRAL_KRUSKAL = 1 << 12;
+        // Por debajo de este tamaño el filtrado no se reparte entre hilos
+        static final int UMBRAL_PARALELO = 1 << 16;
+        
+        ListaAristas vias;
+        long[] claves;
+        ConjuntosConcurrentes conjuntos;
+        ExecutorService ejecutor;
+        int hilos;
+        int[] mst;
+        int tamanoMst;
+        long descartadas;  // vías eliminadas por el filtro sin llegar a ordenarse
+        
+        FiltroKruskal(ListaAristas vias, long[] claves, int numVertices, ExecutorService ejecutor, int hilos) {
+            this.vias = vias;
+            this.claves = claves;
+            this.conjuntos = new ConjuntosConcurrentes(numVertices);
+            this.ejecutor = ejecutor;
+            this.hilos = hilos;
+            this.mst = new int[Math.max(0, Math.min(claves.length, numVertices - 1))];
+        }
         
-        public DisjointSet(int n) {
-            padre = new int[n];
-            rango = new int[n];
+        /**
+         * Procesa las claves [desde, hasta). El tramo caro se trata en el mismo ciclo (en lugar
+         * de con recursión) para que la profundidad dependa sólo de los tramos baratos.
+         */
+        void procesar(int desde, int hasta) {
+            while (hasta - desde > UMBRAL_KRUSKAL && tamanoMst < mst.length) {
+                int corte = particionar(desde, hasta);
+                if (corte == desde || corte == hasta) {
+                    break;
+                }
+                procesar(desde, corte);
+                int conservadas = filtrar(corte, hasta);
+                descartadas += hasta - corte - conservadas;
+                desde = corte;
+                hasta = corte + conservadas;
+            }
             
-            // Inicializar: cada elemento es su propio padre
-            for (int i = 0; i < n; i++) {
-                padre[i] = i;
+            // Kruskal sobre el tramo ordenado
+            Arrays.sort(claves, desde, hasta);
+            for (int i = desde; i < hasta && tamanoMst < mst.length; i++) {
+                int via = (int) claves[i];
+                if (conjuntos.union(vias.origenes[via], vias.destinos[via])) {
+                    mst[tamanoMst++] = via;
+                }
             }
         }
         
         /**
-         * Encuentra el representante (raíz) del conjunto al que pertenece x.
+         * Deja a la izquierda las claves menores o iguales que la mediana de tres y devuelve el
+         * inicio de las mayores. Las claves son todas distintas porque incluyen el índice.
          */
-        public int find(int x) {
-            if (padre[x] != x) {
-                padre[x] = find(padre[x]); // Compresión de camino
+        private int particionar(int desde, int hasta) {
+            long a = claves[desde];
+            long b = claves[(desde + hasta) >>> 1];
+            long c = claves[hasta - 1];
+            long pivote = Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+            
+            int i = desde;
+            int j = hasta - 1;
+            while (i <= j) {
+                if (claves[i] <= pivote) {
+                    i++;
+                } else {
+                    long temporal = claves[i];
+                    claves[i] = claves[j];
+                    claves[j] = temporal;
+                    j--;
+                }
             }
-            return padre[x];
+            return i;
         }
         
         /**
-         * Une los conjuntos que contienen x e y.
+         * Descarta de [desde, hasta) las vías cuyos extremos ya están en el mismo componente y
+         * compacta las restantes al inicio del tramo.
+         * 
+         * @return Número de vías que sobreviven
          */
-        public void union(int x, int y) {
-            int raizX = find(x);
-            int raizY = find(y);
+        private int filtrar(int desde, int hasta) {
+            int partes = hasta - desde < UMBRAL_PARALELO ? 1 : hilos;
+            int[] conservadas = new int[partes];
+            if (partes == 1) {
+                conservadas[0] = filtrarTramo(desde, hasta);
+            } else {
+                List<Future<?>> tareas = new ArrayList<>();
+                for (int h = 0; h < partes; h++) {
+                    int parte = h;
+                    int inicio = desde + (int) ((long) (hasta - desde) * h / partes);
+                    int fin = desde + (int) ((long) (hasta - desde) * (h + 1) / partes);
+                    tareas.add(ejecutor.submit(() -> {
+                        conservadas[parte] = filtrarTramo(inicio, fin);
+                    }));
+                }
+                esperar(tareas);
+            }
             
-            if (raizX == raizY) return;
+            int total = 0;
+            for (int h = 0; h < partes; h++) {
+                int inicio = desde + (int) ((long) (hasta - desde) * h / partes);
+                System.arraycopy(claves, inicio, claves, desde + total, conservadas[h]);
+                total += conservadas[h];
+            }
+            return total;
+        }
+        
+        private int filtrarTramo(int inicio, int fin) {
+            int escritura = inicio;
+            for (int i = inicio; i < fin; i++) {
+                int via = (int) claves[i];
+                if (conjuntos.find(vias.origenes[via]) != conjuntos.find(vias.destinos[via])) {
+                    claves[escritura++] = claves[i];
+                }
+            }
+            return escritura - inicio;
+        }
+    }
+    
+    /**
+     * Estado del problema que se puede modificar vía por vía. El costo efectivo de una vía es 0
+     * si existe la vía en sentido contrario (ya es doble vía) y su costo de conversión si no; el
+     * bosque de expansión mínima dinámico usa como clave el costo efectivo y el índice de la vía,
+     * igual que Kruskal, así que el resultado coincide con recalcular desde cero.
+     */
+    static class ViasDinamicas {
+        ListaAristas vias;          // Todas las vías agregadas alguna vez, con su costo de conversión
+        int[] efectivo;             // Costo en el grafo no dirigido
+        int[] aporte;               // Costo que la vía aporta al total (0 si no se convierte)
+        Map<Long, List<Integer>> viasPorPar = new HashMap<>();
+        ArbolExpansionDinamico arbol;
+        long costoTotal;
+        
+        // Vías cuyo costo efectivo o estado cambió en la operación actual
+        int[] tocadas = new int[16];
+        int numTocadas;
+        
+        ViasDinamicas(int numIntersecciones, ListaAristas iniciales) {
+            // El árbol inicial se calcula con Kruskal; después se mantiene con el bosque dinámico
+            int numVias = iniciales.tamano();
+            boolean[] esDobleVia = marcarDoblesVias(iniciales);
+            efectivo = new int[Math.max(16, numVias)];
+            aporte = new int[efectivo.length];
+            long[] claves = new long[numVias];
+            for (int via = 0; via < numVias; via++) {
+                efectivo[via] = esDobleVia[via] ? 0 : iniciales.pesos[via];
+                claves[via] = claveOrden(efectivo[via], via);
+                viasPorPar.computeIfAbsent(clavePar(iniciales.origenes[via], iniciales.destinos[via]),
+                        k -> new ArrayList<>()).add(via);
+            }
+            int[] mst = kruskalPrimitivo(iniciales, Arrays.copyOf(efectivo, numVias), numIntersecciones);
             
-            // Unión por rango
-            if (rango[raizX] < rango[raizY]) {
-                padre[raizX] = raizY;
-            } else if (rango[raizX] > rango[raizY]) {
-                padre[raizY] = raizX;
-            } else {
-                padre[raizY] = raizX;
-                rango[raizX]++;
+            vias = new ListaAristas(Math.max(16, numVias));
+            vias.agregarTodas(iniciales);
+            arbol = ArbolExpansionDinamico.desdeBosque(numIntersecciones, iniciales, claves, mst);
+            arbol.tomarCambios();
+            for (int via : mst) {
+                tocar(via);
+            }
+            cerrarCambio(null);
+        }
+        
+        /**
+         * Agrega una vía; si completa una doble vía, la vía contraria pasa a costar 0.
+         */
+        void agregar(int origen, int destino, int costo, StringBuilder delta) {
+            if (origen < 0 || origen >= arbol.numVertices || destino < 0 || destino >= arbol.numVertices) {
+                throw new IllegalArgumentException("Intersección fuera de rango: " + origen + " -> " + destino);
+            }
+            int via = vias.tamano();
+            vias.agregar(origen, destino, costo);
+            if (via == efectivo.length) {
+                efectivo = Arrays.copyOf(efectivo, via * 2);
+                aporte = Arrays.copyOf(aporte, via * 2);
+            }
+            
+            List<Integer> mismas = viasPorPar.computeIfAbsent(clavePar(origen, destino), k -> new ArrayList<>());
+            mismas.add(via);
+            List<Integer> inversas = viasPorPar.get(clavePar(destino, origen));
+            boolean dobleVia = inversas != null && !inversas.isEmpty();
+            efectivo[via] = dobleVia ? 0 : costo;
+            arbol.agregarArista(origen, destino, claveOrden(efectivo[via], via));
+            tocar(via);
+            
+            if (dobleVia && mismas.size() == 1 && origen != destino) {
+                for (int inversa : inversas) {
+                    asignarEfectivo(inversa, 0);
+                }
+            }
+            cerrarCambio(delta);
+        }
+        
+        /**
+         * Elimina la última vía origen -> destino; si era la única, las vías contrarias dejan de
+         * ser doble vía y recuperan su costo de conversión.
+         * 
+         * @return false si no existe la vía
+         */
+        boolean eliminar(int origen, int destino, StringBuilder delta) {
+            List<Integer> mismas = viasPorPar.get(clavePar(origen, destino));
+            if (mismas == null) {
+                return false;
+            }
+            int via = mismas.remove(mismas.size() - 1);
+            arbol.eliminarArista(via);
+            tocar(via);
+            
+            if (mismas.isEmpty()) {
+                viasPorPar.remove(clavePar(origen, destino));
+                List<Integer> inversas = viasPorPar.get(clavePar(destino, origen));
+                if (inversas != null && origen != destino) {
+                    for (int inversa : inversas) {
+                        asignarEfectivo(inversa, vias.pesos[inversa]);
+                    }
+                }
+            }
+            cerrarCambio(delta);
+            return true;
+        }
+        
+        /**
+         * Cambia el costo de conversión de la última vía origen -> destino.
+         * 
+         * @return false si no existe la vía
+         */
+        boolean cambiarCosto(int origen, int destino, int costo, StringBuilder delta) {
+            List<Integer> mismas = viasPorPar.get(clavePar(origen, destino));
+            if (mismas == null) {
+                return false;
+            }
+            int via = mismas.get(mismas.size() - 1);
+            vias.pesos[via] = costo;
+            if (!viasPorPar.containsKey(clavePar(destino, origen))) {
+                asignarEfectivo(via, costo);
+            }
+            cerrarCambio(delta);
+            return true;
+        }
+        
+        /**
+         * Agrega el costo total y las vías a convertir, en el mismo orden que Kruskal.
+         */
+        void imprimirResultado(StringBuilder sb) {
+            long[] claves = new long[vias.tamano()];
+            int numConvertir = 0;
+            for (int via = 0; via < vias.tamano(); via++) {
+                if (aporte[via] > 0) {
+                    claves[numConvertir++] = claveOrden(efectivo[via], via);
+                }
+            }
+            Arrays.sort(claves, 0, numConvertir);
+            
+            sb.append("Costo total de conversión: ").append(costoTotal).append('\n');
+            sb.append("Vías a convertir en doble vía:\n");
+            for (int i = 0; i < numConvertir; i++) {
+                int via = (int) claves[i];
+                sb.append(vias.origenes[via]).append(" -> ").append(vias.destinos[via]).append('\n');
+            }
+        }
+        
+        private void asignarEfectivo(int via, int costo) {
+            if (efectivo[via] != costo) {
+                efectivo[via] = costo;
+                arbol.cambiarClave(via, claveOrden(costo, via));
+                tocar(via);
+            }
+        }
+        
+        private void tocar(int via) {
+            if (numTocadas == tocadas.length) {
+                tocadas = Arrays.copyOf(tocadas, numTocadas * 2);
+            }
+            tocadas[numTocadas++] = via;
+        }
+        
+        /**
+         * Actualiza el costo total con las vías tocadas y las que entraron o salieron del árbol,
+         * y anota en delta las que entran (+) o salen (-) de la lista de vías a convertir.
+         */
+        private void cerrarCambio(StringBuilder delta) {
+            for (int via : arbol.tomarCambios()) {
+                tocar(via);
+            }
+            for (int i = 0; i < numTocadas; i++) {
+                int via = tocadas[i];
+                int nuevo = arbol.activa[via] && arbol.enArbol(via) && efectivo[via] > 0 ? efectivo[via] : 0;
+                if (nuevo == aporte[via]) {
+                    continue;
+                }
+                costoTotal += nuevo - aporte[via];
+                if ((nuevo > 0) != (aporte[via] > 0) && delta != null) {
+                    delta.append(nuevo > 0 ? "+ " : "- ");
+                    delta.append(vias.origenes[via]).append(" -> ").append(vias.destinos[via]).append('\n');
+                }
+                aporte[via] = nuevo;
+            }
+            numTocadas = 0;
+        }
+    }
+    
+    // Método auxiliar para leer opciones de la forma --nombre=valor
+    private static String obtenerOpcion(String[] args, String nombre, String valorPorDefecto) {
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].startsWith(nombre + "=")) {
+                return args[i].substring(nombre.length() + 1);
             }
         }
+        return valorPorDefecto;
     }
 }
\ No newline at end of file
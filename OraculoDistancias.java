@@ -0,0 +1,191 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Oráculo de distancias que calcula las filas de origen único a pedido, en lugar de guardar la
+ * matriz completa de V x V. Las filas calculadas se guardan en una caché de tamaño fijo con
+ * reemplazo CLOCK (segunda oportunidad): cada acierto marca la fila como referenciada, y para
+ * hacer lugar la manecilla recorre las ranuras desmarcando las referenciadas hasta encontrar
+ * una que no lo esté. Así la memoria es de capacidad x V enteros más un índice de V enteros
+ * (la ranura de cada origen) y otro de capacidad enteros (el origen de cada ranura), sin
+ * importar cuántos orígenes se consulten.
+ *
+ * Las ranuras pueden estar en el heap (un int[] por ranura) o fuera de él, en búferes
+ * directos (ByteBuffer.allocateDirect), que la recolección de basura no recorre ni copia.
+ * El cálculo escribe la fila en memoria que le entrega el oráculo: el int[] de la ranura, que
+ * se reutiliza al expulsar su fila, o una fila de trabajo que luego se copia al búfer
+ * directo. Así un fallo de caché no deja basura en ninguno de los dos modos.
+ *
+ * Los métodos están sincronizados porque el cálculo de una fila suele reutilizar memoria de
+ * trabajo (por ejemplo, un MonticuloIndexado) que no puede compartirse entre hilos.
+ */
+public class OraculoDistancias {
+    private final int numVertices;
+    private final CalculoFila calculo;
+    private final int capacidad;
+    private final int[][] filasHeap;          // ranuras en el heap, o null
+    private final IntBuffer[] filasDirectas;  // ranuras fuera del heap, o null
+    private final int[] filaTrabajo;          // fila donde se calcula antes de copiarla fuera del heap
+    private final int[] origenDeRanura;       // origen guardado en cada ranura, -1 si está libre
+    private final int[] ranuraDeOrigen;       // ranura de cada origen, -1 si no está en caché
+    private final boolean[] referenciada;
+    private int manecilla;
+    private int ocupadas;
+
+    long aciertos;
+    long fallos;
+    long expulsiones;
+
+    /**
+     * Cálculo de la fila de distancias desde un origen.
+     */
+    public interface CalculoFila {
+        /**
+         * @param origen Vértice origen
+         * @param fila Arreglo de V enteros donde escribir las distancias (su contenido previo
+         *             es el de una fila anterior)
+         */
+        void calcular(int origen, int[] fila);
+    }
+
+    /**
+     * @param numVertices Número de vértices (longitud de cada fila)
+     * @param calculo Cálculo de la fila de distancias desde un origen
+     * @param capacidad Número máximo de filas en caché (al menos 1)
+     * @param fueraDelHeap true para guardar las filas en búferes directos
+     */
+    public OraculoDistancias(int numVertices, CalculoFila calculo, int capacidad, boolean fueraDelHeap) {
+        if (capacidad < 1) {
+            throw new IllegalArgumentException("La caché debe tener al menos una fila: " + capacidad);
+        }
+        this.numVertices = numVertices;
+        this.calculo = calculo;
+        this.capacidad = Math.min(capacidad, Math.max(1, numVertices));
+        filasHeap = fueraDelHeap ? null : new int[this.capacidad][];
+        filasDirectas = fueraDelHeap ? new IntBuffer[this.capacidad] : null;
+        filaTrabajo = fueraDelHeap ? new int[numVertices] : null;
+        origenDeRanura = new int[this.capacidad];
+        ranuraDeOrigen = new int[numVertices];
+        referenciada = new boolean[this.capacidad];
+        Arrays.fill(origenDeRanura, -1);
+        Arrays.fill(ranuraDeOrigen, -1);
+    }
+
+    /**
+     * Número de filas que caben en la memoria dada, con un mínimo de una.
+     *
+     * @param numVertices Número de vértices
+     * @param bytes Memoria disponible para la caché
+     */
+    static int filasParaMemoria(int numVertices, long bytes) {
+        long porFila = 4L * Math.max(1, numVertices);
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, bytes / porFila));
+    }
+
+    /**
+     * Distancia mínima de u a v (Integer.MAX_VALUE si v no es alcanzable desde u).
+     */
+    public synchronized int distancia(int u, int v) {
+        validarVertice(v);
+        int ranura = buscarOCalcular(u);
+        return filasHeap != null ? filasHeap[ranura][v] : filasDirectas[ranura].get(v);
+    }
+
+    /**
+     * Copia de la fila de distancias desde u. La copia no cambia si la fila sale de la caché.
+     */
+    public synchronized int[] fila(int u) {
+        int ranura = buscarOCalcular(u);
+        if (filasHeap != null) {
+            return filasHeap[ranura].clone();
+        }
+        int[] copia = new int[numVertices];
+        filasDirectas[ranura].get(0, copia);
+        return copia;
+    }
+
+    public synchronized boolean enCache(int u) {
+        validarVertice(u);
+        return ranuraDeOrigen[u] != -1;
+    }
+
+    public int capacidad() {
+        return capacidad;
+    }
+
+    public synchronized int filasEnCache() {
+        return ocupadas;
+    }
+
+    /**
+     * Bytes reservados para las filas en caché (sin contar los índices).
+     */
+    public synchronized long bytesEnCache() {
+        return 4L * numVertices * ocupadas;
+    }
+
+    /**
+     * Suma a las métricas los aciertos, fallos y expulsiones de la caché hasta ahora.
+     */
+    public synchronized void registrarMetricas() {
+        Metricas.sumar("oraculo.aciertos", aciertos);
+        Metricas.sumar("oraculo.fallos", fallos);
+        Metricas.sumar("oraculo.expulsiones", expulsiones);
+    }
+
+    private int buscarOCalcular(int u) {
+        validarVertice(u);
+        int ranura = ranuraDeOrigen[u];
+        if (ranura != -1) {
+            aciertos++;
+            referenciada[ranura] = true;
+            return ranura;
+        }
+        fallos++;
+        ranura = ranuraLibre();
+        if (filasHeap != null) {
+            if (filasHeap[ranura] == null) {
+                filasHeap[ranura] = new int[numVertices];
+            }
+            calculo.calcular(u, filasHeap[ranura]);
+        } else {
+            if (filasDirectas[ranura] == null) {
+                filasDirectas[ranura] = ByteBuffer.allocateDirect(4 * numVertices)
+                        .order(ByteOrder.nativeOrder()).asIntBuffer();
+            }
+            calculo.calcular(u, filaTrabajo);
+            filasDirectas[ranura].put(0, filaTrabajo);
+        }
+        origenDeRanura[ranura] = u;
+        ranuraDeOrigen[u] = ranura;
+        // Una fila recién calculada no está referenciada: si no se vuelve a pedir, es la
+        // primera candidata a salir en la siguiente vuelta de la manecilla
+        referenciada[ranura] = false;
+        return ranura;
+    }
+
+    // Devuelve una ranura libre, expulsando la fila que indique CLOCK si la caché está llena
+    private int ranuraLibre() {
+        if (ocupadas < capacidad) {
+            return ocupadas++;
+        }
+        while (referenciada[manecilla]) {
+            referenciada[manecilla] = false;
+            manecilla = (manecilla + 1) % capacidad;
+        }
+        int ranura = manecilla;
+        manecilla = (manecilla + 1) % capacidad;
+        ranuraDeOrigen[origenDeRanura[ranura]] = -1;
+        origenDeRanura[ranura] = -1;
+        expulsiones++;
+        return ranura;
+    }
+
+    private void validarVertice(int v) {
+        if (v < 0 || v >= numVertices) {
+            throw new IllegalArgumentException("Vértice fuera de rango: " + v);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+import java.util.Arrays;
+
+/**
+ * Núcleo de BFS sin asignaciones por recorrido, compartido por los programas.
+ * La cola es un int[] preasignado (cada vértice entra a lo sumo una vez) y los visitados
+ * se marcan con el número de época del recorrido, de modo que empezar un recorrido nuevo
+ * no requiere limpiar el arreglo.
+ *
+ * Al terminar un recorrido, cola[0 .. numVisitados) contiene los vértices visitados en el
+ * orden en que se descubrieron.
+ */
+public class RecorridoBFS {
+    int[] cola;
+    int[] marca;
+    int epoca;
+    int numVisitados;
+
+    public RecorridoBFS(int numVertices) {
+        cola = new int[numVertices];
+        marca = new int[numVertices];
+        epoca = 1;
+    }
+
+    /**
+     * Empieza una época nueva: todos los vértices pasan a estar no visitados.
+     */
+    public void nuevaEpoca() {
+        epoca++;
+        if (epoca == Integer.MAX_VALUE) {
+            // Muy poco frecuente: reiniciar las marcas para que no se repitan épocas
+            Arrays.fill(marca, 0);
+            epoca = 1;
+        }
+        numVisitados = 0;
+    }
+
+    public boolean visitado(int v) {
+        return marca[v] == epoca;
+    }
+
+    /**
+     * Recorre en anchura desde el origen todos los vértices alcanzables no visitados en la
+     * época actual, sin empezar una época nueva. Así varios recorridos de la misma época
+     * particionan el grafo (por ejemplo, en componentes conectados).
+     *
+     * @param grafo Grafo en formato CSR
+     * @param origen Vértice desde donde comenzar el BFS
+     * @return Posición en la cola del primer vértice de este recorrido; los vértices
+     *         alcanzados son cola[inicio .. numVisitados)
+     */
+    public int recorrer(GrafoCSR grafo, int origen) {
+        int inicio = numVisitados;
+        int cabeza = inicio;
+        marca[origen] = epoca;
+        cola[numVisitados++] = origen;
+
+        while (cabeza < numVisitados) {
+            int u = cola[cabeza++];
+            for (int a = grafo.desplazamientos[u]; a < grafo.desplazamientos[u + 1]; a++) {
+                int v = grafo.destinos[a];
+                if (marca[v] != epoca) {
+                    marca[v] = epoca;
+                    cola[numVisitados++] = v;
+                }
+            }
+        }
+
+        return inicio;
+    }
+
+    /**
+     * Recorre en anchura una red residual desde el origen, avanzando solo por arcos con
+     * capacidad residual positiva. Empieza una época nueva; al terminar, visitado(v) indica si
+     * v es alcanzable (tras un flujo máximo, el lado de la fuente del corte mínimo).
+     *
+     * @param red Red residual en formato CSR
+     * @param capacidadResidual Capacidad residual de cada arco
+     * @param origen Nodo desde donde comenzar el BFS
+     * @return Número de nodos alcanzados, que quedan en cola[0 .. numVisitados)
+     */
+    public int recorrerResidual(GrafoCSR red, int[] capacidadResidual, int origen) {
+        nuevaEpoca();
+        int cabeza = 0;
+        marca[origen] = epoca;
+        cola[numVisitados++] = origen;
+
+        while (cabeza < numVisitados) {
+            int u = cola[cabeza++];
+            for (int a = red.desplazamientos[u]; a < red.desplazamientos[u + 1]; a++) {
+                int v = red.destinos[a];
+                if (marca[v] != epoca && capacidadResidual[a] > 0) {
+                    marca[v] = epoca;
+                    cola[numVisitados++] = v;
+                }
+            }
+        }
+
+        return numVisitados;
+    }
+
+    /**
+     * Busca un camino de aumento en una red residual: solo se avanza por arcos con capacidad
+     * residual positiva. Empieza una época nueva y se detiene al descubrir el sumidero.
+     *
+     * @param red Red residual en formato CSR
+     * @param capacidadResidual Capacidad residual de cada arco
+     * @param fuente Nodo fuente
+     * @param sumidero Nodo sumidero
+     * @param arcoPadre Arreglo para almacenar el arco por el que se llegó a cada nodo
+     * @return true si se encontró un camino de aumento, false en caso contrario
+     */
+    public boolean buscarCamino(GrafoCSR red, int[] capacidadResidual, int fuente, int sumidero, int[] arcoPadre) {
+        nuevaEpoca();
+        int cabeza = 0;
+        marca[fuente] = epoca;
+        arcoPadre[fuente] = -1;
+        cola[numVisitados++] = fuente;
+
+        while (cabeza < numVisitados) {
+            int u = cola[cabeza++];
+            for (int a = red.desplazamientos[u]; a < red.desplazamientos[u + 1]; a++) {
+                int v = red.destinos[a];
+                if (marca[v] != epoca && capacidadResidual[a] > 0) {
+                    marca[v] = epoca;
+                    arcoPadre[v] = a;
+                    if (v == sumidero) {
+                        return true;
+                    }
+                    cola[numVisitados++] = v;
+                }
+            }
+        }
+
+        return false;
+    }
+}